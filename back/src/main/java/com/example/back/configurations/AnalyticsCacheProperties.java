@@ -0,0 +1,12 @@
+package com.example.back.configurations;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "analytics.cache")
+public record AnalyticsCacheProperties(
+    @DefaultValue("1000") int maxSize,
+    @DefaultValue("6h") Duration ttl
+) {}
@@ -0,0 +1,16 @@
+package com.example.back.configurations;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "analytics.jobs")
+public record AnalyticsJobProperties(
+    @DefaultValue("4") int threads,
+    @DefaultValue("100") int queueCapacity,
+    @DefaultValue("15m") Duration retention,
+    @DefaultValue("60s") Duration waitTimeout,
+    @DefaultValue("5m") Duration streamTimeout,
+    @DefaultValue("8") int streamThreads
+) {}
@@ -0,0 +1,16 @@
+package com.example.back.configurations;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "analytics.precompute")
+public record AnalyticsPrecomputeProperties(
+    @DefaultValue("0 0 3 * * *") String cron,
+    @DefaultValue("2") int parallelism,
+    @DefaultValue("500") int maxUsersPerRun,
+    @DefaultValue("30s") Duration backoffInitial,
+    @DefaultValue("10m") Duration backoffMax,
+    @DefaultValue("5") int maxConsecutiveFailures
+) {}
@@ -0,0 +1,14 @@
+package com.example.back.configurations;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "analytics.prompt")
+public record AnalyticsPromptProperties(
+    @DefaultValue("3000") int tokenBudget,
+    @DefaultValue("4") int charsPerToken,
+    @DefaultValue("90d") Duration window,
+    @DefaultValue("160") int maxNoteLength
+) {}
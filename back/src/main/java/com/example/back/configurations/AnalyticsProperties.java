@@ -0,0 +1,9 @@
+package com.example.back.configurations;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "analytics")
+public record AnalyticsProperties(
+    @DefaultValue("UTC") String zone
+) {}
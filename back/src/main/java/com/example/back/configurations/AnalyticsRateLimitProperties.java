@@ -0,0 +1,17 @@
+package com.example.back.configurations;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// capacity is the burst a user may spend at once, refill is the time it takes to earn back one call
+@ConfigurationProperties(prefix = "analytics.rate-limit")
+public record AnalyticsRateLimitProperties(
+    @DefaultValue("5") int entryCapacity,
+    @DefaultValue("1m") Duration entryRefill,
+    @DefaultValue("2") int allEntriesCapacity,
+    @DefaultValue("10m") Duration allEntriesRefill,
+    @DefaultValue("64") int stripes,
+    @DefaultValue("30m") Duration idleTimeout
+) {}
@@ -0,0 +1,13 @@
+package com.example.back.configurations;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "analytics.summary")
+public record AnalyticsSummaryProperties(
+    @DefaultValue("8") int fullRefreshEvery,
+    @DefaultValue("30d") Duration fullRefreshAge,
+    @DefaultValue("60") int maxNewEntries
+) {}
@@ -0,0 +1,13 @@
+package com.example.back.configurations;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "entries")
+public record EntryProperties(
+    @DefaultValue("200") int defaultPageSize,
+    @DefaultValue("1000") int maxPageSize,
+    @DefaultValue("500") int importBatchSize,
+    @DefaultValue("100") int importMaxReportedErrors,
+    @DefaultValue("1000") int deleteMaxIds
+) {}
@@ -0,0 +1,26 @@
+package com.example.back.configurations;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "llm")
+public record LlmProperties(
+    @DefaultValue("https://router.huggingface.co/hyperbolic/v1/chat/completions") String url,
+    String apiKey,
+    @DefaultValue("deepseek-ai/DeepSeek-R1") String model,
+    @DefaultValue("5s") Duration connectTimeout,
+    @DefaultValue("120s") Duration readTimeout,
+    @DefaultValue("20") int maxConnections,
+    @DefaultValue("8") int maxConcurrentCalls,
+    @DefaultValue("2s") Duration acquireTimeout,
+    @DefaultValue("5") int breakerFailureThreshold,
+    @DefaultValue("30s") Duration breakerOpenDuration
+) {
+    public LlmProperties {
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new IllegalStateException("llm.api-key is not set, provide it through LLM_API_KEY");
+        }
+    }
+}
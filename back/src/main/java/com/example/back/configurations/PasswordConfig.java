@@ -2,13 +2,14 @@ package com.example.back.configurations;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.example.back.security.BoundedBCryptPasswordEncoder;
+
 @Configuration
 public class PasswordConfig {
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public PasswordEncoder passwordEncoder(PasswordProperties passwordProperties) {
+        return new BoundedBCryptPasswordEncoder(passwordProperties);
     }
 }
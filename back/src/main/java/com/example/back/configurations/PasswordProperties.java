@@ -0,0 +1,14 @@
+package com.example.back.configurations;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "security.password")
+public record PasswordProperties(
+    @DefaultValue("12") int bcryptStrength,
+    @DefaultValue("2") int hashingThreads,
+    @DefaultValue("16") int queueCapacity,
+    @DefaultValue("3s") Duration queueTimeout
+) {}
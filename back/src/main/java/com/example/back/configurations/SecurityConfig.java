@@ -1,18 +1,25 @@
 package com.example.back.configurations;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter.ReferrerPolicy;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 import org.springframework.web.cors.CorsConfiguration;
 
+import com.example.back.security.RehashingAuthenticationProvider;
 import com.example.back.services.UserService;
 
 import lombok.AllArgsConstructor;
@@ -24,7 +31,45 @@ public class SecurityConfig {
 
     private UserService userService;
 
+    // set once the management server is up; stays -1 when the actuator shares the application port
+    private final AtomicInteger managementPort = new AtomicInteger(-1);
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if ("management".equals(event.getApplicationContext().getServerNamespace())) {
+            managementPort.set(event.getWebServer().getPort());
+        }
+    }
+
+    // the management port is not published outside the compose network, so the scraper gets in without a session
     @Bean
+    @Order(1)
+    public SecurityFilterChain managementSecurityFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher(request -> request.getLocalPort() == managementPort.get())
+            .csrf(
+                csrf ->
+                    csrf.disable()
+            )
+            .authorizeHttpRequests(
+                req ->
+                    req
+                        .anyRequest().permitAll()
+            )
+            .sessionManagement(
+                session ->
+                    session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            )
+            .requestCache(
+                cache ->
+                    cache.requestCache(new NullRequestCache())
+            );
+        return http.build();
+    }
+
+    @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .csrf(
@@ -36,20 +81,27 @@ public class SecurityConfig {
                 req ->
                     req
                         .requestMatchers("/auth/**").permitAll()
+                        // signup is open, so a session says nothing about who may read global metrics
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).denyAll()
                         .anyRequest().authenticated()
             )
             .sessionManagement(
                 session ->
                     session
-                        .sessionCreationPolicy(SessionCreationPolicy.ALWAYS)
+                        .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
                         .sessionFixation(fixation -> fixation.newSession())
                         .invalidSessionUrl("/auth/invalid-session")
             )
+            // anonymous requests must not create sessions just to remember where they were going
+            .requestCache(
+                cache ->
+                    cache.requestCache(new NullRequestCache())
+            )
             .logout(
                 logout ->
                     logout
                         .logoutSuccessUrl("/auth/status")
-                        .deleteCookies("JSESSIONID")
+                        .deleteCookies("SESSION")
                         .invalidateHttpSession(true)
             )
             .headers(
@@ -74,10 +126,7 @@ public class SecurityConfig {
 
     @Bean
     public AuthenticationManager authenticationManager(PasswordEncoder passwordEncoder) {
-        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
-        daoAuthenticationProvider.setUserDetailsService(userService);
-        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
-        return new ProviderManager(daoAuthenticationProvider);
+        return new ProviderManager(new RehashingAuthenticationProvider(userService, passwordEncoder, userService));
     }
 
     @Bean
@@ -3,23 +3,52 @@ package com.example.back.controllers;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.back.configurations.AnalyticsJobProperties;
+import com.example.back.configurations.AnalyticsProperties;
 import com.example.back.entities.EntryEntity;
-import com.example.back.entities.UserEntity;
+import com.example.back.entities.SleepRollupEntity.Period;
 import com.example.back.exceptions.EntryNotExistsException;
+import com.example.back.exceptions.JobNotExistsException;
+import com.example.back.exceptions.JobRejectedException;
+import com.example.back.exceptions.LlmRequestException;
+import com.example.back.security.UserPrincipal;
+import com.example.back.services.AnalyticsJobService;
+import com.example.back.services.AnalyticsRateLimiter;
+import com.example.back.services.AnalyticsRateLimiter.Budget;
+import com.example.back.services.AnalyticsJobService.JobView;
+import com.example.back.services.AnalyticsReportService;
 import com.example.back.services.AnalyticsService;
+import com.example.back.services.SleepRollupService;
+import com.example.back.services.SleepRollupService.TrendPoint;
+import com.example.back.services.SleepStatisticsService;
+import com.example.back.services.SleepStatisticsService.SleepStatistics;
 import com.example.back.services.EntryService;
-import com.example.back.services.UserService;
 
 import lombok.AllArgsConstructor;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 
 
@@ -27,30 +56,234 @@ import org.springframework.web.bind.annotation.RequestBody;
 @AllArgsConstructor
 @RequestMapping("/analytics")
 public class AnalyticsController {
+
+    private static final String RATE_LIMITED = "Too many analytics requests, try again later";
     
     private AnalyticsService analyticsService;
-    private UserService userService;
+    private AnalyticsJobService analyticsJobService;
+    private AnalyticsJobProperties analyticsJobProperties;
+    private AnalyticsProperties analyticsProperties;
+    private SleepStatisticsService sleepStatisticsService;
+    private SleepRollupService sleepRollupService;
+    private EntryService entryService;
+    private AnalyticsRateLimiter analyticsRateLimiter;
+    private AnalyticsReportService analyticsReportService;
 
     @PostMapping("/notes")
-    public ResponseEntity<AnalyticsResp> getNotes(Authentication authentication, @RequestBody NotesReq notesReq) {
-        return ResponseEntity.ok().body(new AnalyticsResp(true, null, analyticsService.getNotesForEntry(notesReq.entryId)));
+    public ResponseEntity<AnalyticsResp> getNotes(@AuthenticationPrincipal UserPrincipal principal, @RequestBody NotesReq notesReq) {
+        long retryAfter = analyticsRateLimiter.tryAcquire(Budget.ENTRY, principal.getId());
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter, new AnalyticsResp(false, new String[]{ RATE_LIMITED }, null));
+        }
+
+        return ResponseEntity.ok().body(new AnalyticsResp(true, null, analyticsService.getNotesForEntry(principal.getId(), notesReq.entryId)));
     }
 
     @GetMapping("/forall")
-    public ResponseEntity<AnalyticsResp> getNotesForAll(Authentication authentication) {
-        UserEntity userEntity;
+    public ResponseEntity<AnalyticsResp> getNotesForAll(
+        @AuthenticationPrincipal UserPrincipal principal,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        long dataVersion = entryService.getDataVersion(principal.getId());
+        String etag = ConditionalRequests.etag(principal.getId(), dataVersion);
+        if (ConditionalRequests.notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(ConditionalRequests.REVALIDATE).build();
+        }
+
+        // a report pre-computed for this exact version is served without spending quota
+        Optional<String> stored = analyticsReportService.findCurrentReport(principal.getId(), dataVersion);
+        if (stored.isPresent()) {
+            return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(ConditionalRequests.REVALIDATE)
+                .body(new AnalyticsResp(true, null, stored.get()));
+        }
+
+        long retryAfter = analyticsRateLimiter.tryAcquire(Budget.ALL_ENTRIES, principal.getId());
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter, new AnalyticsResp(false, new String[]{ RATE_LIMITED }, null));
+        }
 
+        // failures are not tagged, so the browser never keeps an error message as the answer
+        String answer;
         try {
-            userEntity = userService.getUserByUsername(authentication.getName());
-        } catch (UsernameNotFoundException e) {
-            return ResponseEntity.ok().body(new AnalyticsResp(false, new String[]{ e.getMessage() }, null));
+            answer = analyticsReportService.generateReport(principal.getId(), dataVersion);
+        } catch (LlmRequestException e) {
+            return ResponseEntity.ok().body(new AnalyticsResp(true, null, e.getMessage()));
+        }
+
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(ConditionalRequests.REVALIDATE)
+            .body(new AnalyticsResp(true, null, answer));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<StatsResp> getStats(
+        @AuthenticationPrincipal UserPrincipal principal,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        String etag = ConditionalRequests.etag(principal.getId(), entryService.getDataVersion(principal.getId()));
+        if (ConditionalRequests.notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(ConditionalRequests.REVALIDATE).build();
+        }
+
+        List<EntryEntity> entries = entryService.getUserEntries(principal.getId());
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(ConditionalRequests.REVALIDATE)
+            .body(new StatsResp(true, null, sleepStatisticsService.compute(entries, ZoneId.of(analyticsProperties.zone()))));
+    }
+
+    @GetMapping("/trends")
+    public ResponseEntity<TrendsResp> getTrends(
+        @AuthenticationPrincipal UserPrincipal principal,
+        @RequestParam(defaultValue = "week") String period,
+        @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        String etag = ConditionalRequests.etag(principal.getId(), entryService.getDataVersion(principal.getId()));
+        if (ConditionalRequests.notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(ConditionalRequests.REVALIDATE).build();
+        }
+
+        Period rollupPeriod = "day".equalsIgnoreCase(period) ? Period.DAY : Period.WEEK;
+        LocalDate rangeEnd = to == null ? LocalDate.now(ZoneId.of(analyticsProperties.zone())) : to;
+        LocalDate rangeStart = from == null ? rangeEnd.minusYears(1) : from;
+
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(ConditionalRequests.REVALIDATE)
+            .body(new TrendsResp(true, null, sleepRollupService.getTrends(principal.getId(), rollupPeriod, rangeStart, rangeEnd)));
+    }
+
+    @PostMapping(value = "/notes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotes(@AuthenticationPrincipal UserPrincipal principal, @RequestBody NotesReq notesReq) {
+        long retryAfter = analyticsRateLimiter.tryAcquire(Budget.ENTRY, principal.getId());
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter, null);
         }
 
-        return ResponseEntity.ok().body(new AnalyticsResp(true, null, analyticsService.getNotesForUserEntries(userEntity.getId())));
+        return stream(onDelta -> analyticsService.streamNotesForEntry(principal.getId(), notesReq.entryId, onDelta));
+    }
+
+    @GetMapping(value = "/forall/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotesForAll(@AuthenticationPrincipal UserPrincipal principal) {
+        long dataVersion = entryService.getDataVersion(principal.getId());
+
+        // a stored report for this version goes out as a single event, again without spending quota
+        Optional<String> stored = analyticsReportService.findCurrentReport(principal.getId(), dataVersion);
+        if (stored.isPresent()) {
+            return stream(onDelta -> onDelta.accept(stored.get()));
+        }
+
+        long retryAfter = analyticsRateLimiter.tryAcquire(Budget.ALL_ENTRIES, principal.getId());
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter, null);
+        }
+
+        return stream(onDelta -> analyticsReportService.streamReport(principal.getId(), dataVersion, onDelta));
+    }
+
+    // rejected before any provider work; the all-entries endpoints first read the data version and the stored report,
+    // so a client in a loop costs at most those two small queries
+    private <T> ResponseEntity<T> tooManyRequests(long retryAfterSeconds, T body) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+            .body(body);
+    }
+
+    private ResponseEntity<SseEmitter> stream(StreamTask task) {
+        SseEmitter emitter = new SseEmitter(analyticsJobProperties.streamTimeout().toMillis());
+
+        try {
+            analyticsJobService.runStream(() -> {
+                try {
+                    task.run(delta -> {
+                        try {
+                            emitter.send(SseEmitter.event().name("delta").data(new StreamDelta(delta), MediaType.APPLICATION_JSON));
+                        } catch (IOException | IllegalStateException e) {
+                            // the client went away; keep consuming so the answer still gets cached
+                        }
+                    });
+                    emitter.send(SseEmitter.event().name("done").data(""));
+                    emitter.complete();
+                } catch (Exception e) {
+                    sendError(emitter, e.getMessage());
+                }
+            });
+        } catch (JobRejectedException e) {
+            sendError(emitter, e.getMessage());
+        }
+
+        // nginx must not buffer the event stream
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+    }
+
+    private void sendError(SseEmitter emitter, String message) {
+        try {
+            emitter.send(SseEmitter.event().name("error").data(new StreamError(message), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    @PostMapping("/jobs/forall")
+    public ResponseEntity<JobResp> submitForAllJob(@AuthenticationPrincipal UserPrincipal principal) {
+        long retryAfter = analyticsRateLimiter.tryAcquire(Budget.ALL_ENTRIES, principal.getId());
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter, new JobResp(false, new String[]{ RATE_LIMITED }, null));
+        }
+
+        try {
+            return ResponseEntity.ok().body(new JobResp(true, null, analyticsJobService.submitForAll(principal.getId())));
+        } catch (JobRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new JobResp(false, new String[]{ e.getMessage() }, null));
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<JobResp> getJob(@AuthenticationPrincipal UserPrincipal principal, @PathVariable String jobId) {
+        return jobResult(jobId, principal.getId());
+    }
+
+    @GetMapping("/jobs/{jobId}/result")
+    public DeferredResult<ResponseEntity<JobResp>> awaitJob(@AuthenticationPrincipal UserPrincipal principal, @PathVariable String jobId) {
+        DeferredResult<ResponseEntity<JobResp>> deferredResult = new DeferredResult<>(analyticsJobProperties.waitTimeout().toMillis());
+        try {
+            // on timeout the client gets the job as it is now and simply waits again
+            deferredResult.onTimeout(() -> deferredResult.setResult(jobResult(jobId, principal.getId())));
+            analyticsJobService.awaitJob(jobId, principal.getId())
+                .thenAccept(job -> deferredResult.setResult(ResponseEntity.ok().body(new JobResp(true, null, job))));
+        } catch (JobNotExistsException e) {
+            deferredResult.setResult(ResponseEntity.ok().body(new JobResp(false, new String[]{ e.getMessage() }, null)));
+        }
+
+        return deferredResult;
+    }
+
+    private ResponseEntity<JobResp> jobResult(String jobId, String userId) {
+        try {
+            return ResponseEntity.ok().body(new JobResp(true, null, analyticsJobService.getJob(jobId, userId)));
+        } catch (JobNotExistsException e) {
+            return ResponseEntity.ok().body(new JobResp(false, new String[]{ e.getMessage() }, null));
+        }
+    }
+
+    @FunctionalInterface
+    private interface StreamTask {
+        void run(Consumer<String> onDelta) throws Exception;
     }
 
     private record NotesReq(String entryId) {};
 
     private record AnalyticsResp(Boolean success, String[] errors, String data) {};
+    private record JobResp(Boolean success, String[] errors, JobView job) {};
+    private record StreamDelta(String text) {};
+    private record StreamError(String error) {};
+    private record StatsResp(Boolean success, String[] errors, SleepStatistics stats) {};
+    private record TrendsResp(Boolean success, String[] errors, List<TrendPoint> trend) {};
     
 }
@@ -44,7 +44,7 @@ public class AuthController {
         UserEntity userEntity = UserEntity.builder().username(signUpReq.username).password(signUpReq.password).role("USER").build();
         try {
             userEntity = userService.createUser(userEntity);
-        } catch (UsernameAlreadyExistsException e) {
+        } catch (UsernameAlreadyExistsException | AuthenticationException e) {
             return ResponseEntity.ok().body(new SignUpResp(false, new String[] { e.getMessage() }));
         }
 
@@ -0,0 +1,34 @@
+package com.example.back.controllers;
+
+import org.springframework.http.CacheControl;
+
+final class ConditionalRequests {
+
+    // private and revalidated every time: the browser keeps the body, the server only compares versions
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalRequests() {}
+
+    // the user id is part of the tag, so a browser shared by two accounts never revalidates one with the other's copy
+    static String etag(String userId, long dataVersion) {
+        return "\"" + userId + "-" + dataVersion + "\"";
+    }
+
+    static boolean notModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -4,21 +4,39 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.back.entities.EntryEntity;
-import com.example.back.entities.UserEntity;
 import com.example.back.exceptions.EntryNotExistsException;
+import com.example.back.exceptions.InvalidCursorException;
+import com.example.back.exceptions.InvalidDeleteRequestException;
+import com.example.back.security.UserPrincipal;
+import com.example.back.services.EntryExportService;
+import com.example.back.services.EntryImportService;
+import com.example.back.services.EntryImportService.Format;
+import com.example.back.services.EntryImportService.ImportResult;
 import com.example.back.services.EntryService;
-import com.example.back.services.UserService;
+import com.example.back.services.EntryService.CompactEntryPage;
+import com.example.back.services.EntryService.EntryPage;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 
+import java.io.IOException;
 import java.util.Date;
+import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 
@@ -28,75 +46,151 @@ import org.springframework.web.bind.annotation.RequestBody;
 public class EntryController {
     
     private EntryService entryService;
-    private UserService userService;
+    private EntryImportService entryImportService;
+    private EntryExportService entryExportService;
 
     @GetMapping("/entries")
-    public ResponseEntity<EntriesResp> getEntries(Authentication authentication) {
-        UserEntity userEntity;
+    public ResponseEntity<EntriesResp> getEntries(
+        @AuthenticationPrincipal UserPrincipal principal,
+        @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Date from,
+        @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Date to,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        String etag = ConditionalRequests.etag(principal.getId(), entryService.getDataVersion(principal.getId()));
+        if (ConditionalRequests.notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(ConditionalRequests.REVALIDATE).build();
+        }
 
+        EntryPage entryPage;
         try {
-            userEntity = userService.getUserByUsername(authentication.getName());
-        } catch (UsernameNotFoundException e) {
-            return ResponseEntity.ok().body(new EntriesResp(false, new String[]{ e.getMessage() }, null));
+            entryPage = entryService.getEntriesPage(principal.getId(), from, to, cursor, limit);
+        } catch (InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(new EntriesResp(false, new String[]{ e.getMessage() }, null, null));
         }
 
-        return ResponseEntity.ok().body(new EntriesResp(true, null, entryService.getUserEntries(userEntity.getId()).toArray(new EntryEntity[1])));
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(ConditionalRequests.REVALIDATE)
+            .body(new EntriesResp(true, null, entryPage.entries().toArray(new EntryEntity[0]), entryPage.nextCursor()));
     }
 
-    @PostMapping("/add")
-    public ResponseEntity<AddEntryResp> addEntry(Authentication authentication, @RequestBody AddEntryReq addEntryReq) {
-        UserEntity userEntity;
+    @GetMapping(value = "/entries", params = "format=compact")
+    public ResponseEntity<CompactEntriesResp> getCompactEntries(
+        @AuthenticationPrincipal UserPrincipal principal,
+        @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Date from,
+        @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Date to,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        String etag = ConditionalRequests.etag(principal.getId(), entryService.getDataVersion(principal.getId()));
+        if (ConditionalRequests.notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(ConditionalRequests.REVALIDATE).build();
+        }
 
+        CompactEntryPage compactEntryPage;
         try {
-            userEntity = userService.getUserByUsername(authentication.getName());
-        } catch (UsernameNotFoundException e) {
-            return ResponseEntity.ok().body(new AddEntryResp(false, new String[]{ e.getMessage() }, null));
+            compactEntryPage = entryService.getCompactEntriesPage(principal.getId(), from, to, cursor, limit);
+        } catch (InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(new CompactEntriesResp(false, new String[]{ e.getMessage() }, null));
         }
 
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(ConditionalRequests.REVALIDATE)
+            .body(new CompactEntriesResp(true, null, compactEntryPage));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEntries(
+        @AuthenticationPrincipal UserPrincipal principal,
+        @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        String userId = principal.getId();
+        Format exportFormat = "csv".equalsIgnoreCase(format) ? Format.CSV : Format.NDJSON;
+        StreamingResponseBody body = out -> entryExportService.exportEntries(userId, exportFormat, out);
+
+        return ResponseEntity.ok()
+            .contentType(exportFormat == Format.CSV ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"entries." + (exportFormat == Format.CSV ? "csv" : "ndjson") + "\"")
+            .body(body);
+    }
+
+    @PostMapping("/add")
+    public ResponseEntity<AddEntryResp> addEntry(@AuthenticationPrincipal UserPrincipal principal, @RequestBody AddEntryReq addEntryReq) {
         EntryEntity entryEntity = new EntryEntity();
         entryEntity.setStart(addEntryReq.start);
         entryEntity.setEnd(addEntryReq.end);
         entryEntity.setRate(addEntryReq.rate);
         entryEntity.setNotes(addEntryReq.notes);
-        entryEntity.setUserId(userEntity.getId());
+        entryEntity.setUserId(principal.getId());
 
         entryEntity = entryService.saveEntry(entryEntity);
 
         return ResponseEntity.ok().body(new AddEntryResp(true, null, entryEntity.getId()));
     }
 
-    @PostMapping("/delete")
-    public ResponseEntity<DeleteEntryResp> deleteEntry(Authentication authentication, @RequestBody DeleteEntryReq deleteEntryReq) {
-        UserEntity userEntity;
+    @PostMapping(value = "/import", consumes = { "application/x-ndjson", "text/csv" })
+    public ResponseEntity<ImportResp> importEntries(@AuthenticationPrincipal UserPrincipal principal, HttpServletRequest request) {
+        Format format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+            ? Format.CSV
+            : Format.NDJSON;
 
+        ImportResult importResult;
         try {
-            userEntity = userService.getUserByUsername(authentication.getName());
-        } catch (UsernameNotFoundException e) {
-            return ResponseEntity.ok().body(new DeleteEntryResp(false, new String[]{ e.getMessage() }));
+            importResult = entryImportService.importEntries(principal.getId(), request.getInputStream(), format);
+        } catch (IOException e) {
+            return ResponseEntity.ok().body(new ImportResp(false, new String[]{ "IO exception" }, null));
         }
 
-        EntryEntity entryEntity;
+        if (importResult.failure() != null) {
+            return ResponseEntity.ok().body(new ImportResp(false, new String[]{ importResult.failure() }, importResult));
+        }
+
+        return ResponseEntity.ok().body(new ImportResp(true, null, importResult));
+    }
+
+    @PostMapping("/delete")
+    public ResponseEntity<DeleteEntryResp> deleteEntry(@AuthenticationPrincipal UserPrincipal principal, @RequestBody DeleteEntryReq deleteEntryReq) {
         try {
-            entryEntity = entryService.getEntry(deleteEntryReq.entryId);
+            entryService.deleteEntry(principal.getId(), deleteEntryReq.entryId);
         } catch (EntryNotExistsException e) {
             return ResponseEntity.ok().body(new DeleteEntryResp(false, new String[]{ e.getMessage() }));
         }
 
-        if (userEntity.getId() != entryEntity.getUserId()) {
-            return ResponseEntity.ok().body(new DeleteEntryResp(false, new String[]{ "Unauthorized" }));
-        }
+        return ResponseEntity.ok().body(new DeleteEntryResp(true, null));
+    }
 
-        entryService.deleteEntry(deleteEntryReq.entryId);
+    @PostMapping("/delete/bulk")
+    public ResponseEntity<BulkDeleteResp> deleteEntries(@AuthenticationPrincipal UserPrincipal principal, @RequestBody BulkDeleteReq bulkDeleteReq) {
+        int deleted;
+        try {
+            if (bulkDeleteReq.entryIds != null && (bulkDeleteReq.from != null || bulkDeleteReq.to != null)) {
+                throw new InvalidDeleteRequestException();
+            }
+
+            deleted = bulkDeleteReq.entryIds != null
+                ? entryService.deleteEntries(principal.getId(), bulkDeleteReq.entryIds)
+                : entryService.deleteEntries(principal.getId(), bulkDeleteReq.from, bulkDeleteReq.to);
+        } catch (InvalidDeleteRequestException e) {
+            return ResponseEntity.ok().body(new BulkDeleteResp(false, new String[]{ e.getMessage() }, 0));
+        }
 
-        return ResponseEntity.ok().body(new DeleteEntryResp(true, null));
+        return ResponseEntity.ok().body(new BulkDeleteResp(true, null, deleted));
     }
     
 
     private record AddEntryReq(Date start, Date end, int rate, String notes) {};
     private record DeleteEntryReq(String entryId) {};
+    private record BulkDeleteReq(List<String> entryIds, Date from, Date to) {};
 
-    private record EntriesResp(Boolean success, String[] errors, EntryEntity[] entries) {};
+    private record EntriesResp(Boolean success, String[] errors, EntryEntity[] entries, String nextCursor) {};
+    private record CompactEntriesResp(Boolean success, String[] errors, @JsonUnwrapped CompactEntryPage page) {};
     private record AddEntryResp(Boolean success, String[] errors, String entryId) {};
+    private record ImportResp(Boolean success, String[] errors, ImportResult result) {};
     private record DeleteEntryResp(Boolean success, String[] errors) {};
+    private record BulkDeleteResp(Boolean success, String[] errors, int deleted) {};
     
 }
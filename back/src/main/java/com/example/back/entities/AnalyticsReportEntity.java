@@ -0,0 +1,55 @@
+package com.example.back.entities;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// the all-entries analysis of one user, valid while the user's data version and the model are unchanged;
+// the newest covered entry (by start, then id) and the entry count let the next report send only what was added
+@Data
+@Entity
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "analytics_report")
+public class AnalyticsReportEntity {
+    @Id
+    @Column(name = "user_id")
+    private String userId;
+
+    @Column(nullable = false, name = "data_version")
+    private long dataVersion;
+
+    @Column(nullable = false)
+    private String model;
+
+    @Lob
+    @Column(nullable = false)
+    private String report;
+
+    @Column(nullable = false, name = "generated_at")
+    private Date generatedAt;
+
+    @Column(nullable = false, name = "entry_count")
+    private long entryCount;
+
+    @Column(name = "covered_until")
+    private Date coveredUntil;
+
+    @Column(name = "covered_entry_id")
+    private String coveredEntryId;
+
+    @Column(nullable = false, name = "incremental_runs")
+    private int incrementalRuns;
+
+    @Column(name = "full_at")
+    private Date fullAt;
+}
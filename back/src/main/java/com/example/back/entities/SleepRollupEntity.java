@@ -0,0 +1,81 @@
+package com.example.back.entities;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// bedtime and wake time are minutes after noon of the night's day, so nights around midnight sum without wrapping
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(SleepRollupEntity.Key.class)
+@Table(name = "sleep_rollup")
+public class SleepRollupEntity {
+    @Id
+    @Column(name = "user_id")
+    private String userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 8)
+    private Period period;
+
+    @Id
+    @Column(name = "period_start")
+    private LocalDate periodStart;
+
+    @Column(nullable = false)
+    private int nights;
+
+    @Column(nullable = false, name = "total_minutes")
+    private long totalMinutes;
+
+    @Column(nullable = false, name = "rate_sum")
+    private int rateSum;
+
+    @Column(nullable = false, name = "rate_min")
+    private int rateMin;
+
+    @Column(nullable = false, name = "rate_max")
+    private int rateMax;
+
+    @Column(nullable = false, name = "bedtime_sum")
+    private long bedtimeSum;
+
+    @Column(nullable = false, name = "bedtime_squares")
+    private long bedtimeSquares;
+
+    @Column(nullable = false, name = "wake_sum")
+    private long wakeSum;
+
+    @Column(nullable = false, name = "wake_squares")
+    private long wakeSquares;
+
+    public enum Period { DAY, WEEK }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String userId;
+        private Period period;
+        private LocalDate periodStart;
+    }
+}
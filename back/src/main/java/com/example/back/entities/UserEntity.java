@@ -38,6 +38,10 @@ public class UserEntity implements UserDetails {
     @Column(nullable = false)
     private String role;
 
+    // only ever changed by UserRepository.incrementDataVersion, so saving a stale user cannot roll it back
+    @Column(name = "data_version", nullable = false, updatable = false)
+    private long dataVersion;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return Collections.singletonList(new SimpleGrantedAuthority(role));
@@ -0,0 +1,7 @@
+package com.example.back.exceptions;
+
+public class InvalidCursorException extends Exception {
+    public InvalidCursorException() {
+        super("Invalid cursor");
+    }
+}
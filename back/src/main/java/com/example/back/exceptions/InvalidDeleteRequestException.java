@@ -0,0 +1,7 @@
+package com.example.back.exceptions;
+
+public class InvalidDeleteRequestException extends Exception {
+    public InvalidDeleteRequestException() {
+        super("Give either entry ids or a from/to range");
+    }
+}
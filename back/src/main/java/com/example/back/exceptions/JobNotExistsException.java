@@ -0,0 +1,7 @@
+package com.example.back.exceptions;
+
+public class JobNotExistsException extends Exception {
+    public JobNotExistsException() {
+        super("Job not exists");
+    }
+}
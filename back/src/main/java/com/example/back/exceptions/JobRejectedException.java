@@ -0,0 +1,7 @@
+package com.example.back.exceptions;
+
+public class JobRejectedException extends Exception {
+    public JobRejectedException() {
+        super("Too many analytics jobs, try again later");
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.back.exceptions;
+
+public class LlmRequestException extends Exception {
+    private final String outcome;
+
+    public LlmRequestException(String message) {
+        this(message, "error");
+    }
+
+    // outcome is a short, fixed tag for metrics, the message is what the user sees
+    public LlmRequestException(String message, String outcome) {
+        super(message);
+        this.outcome = outcome;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+}
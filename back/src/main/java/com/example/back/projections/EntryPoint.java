@@ -0,0 +1,5 @@
+package com.example.back.projections;
+
+import java.util.Date;
+
+public record EntryPoint(String id, Date start, Date end, int rate) {}
@@ -0,0 +1,3 @@
+package com.example.back.projections;
+
+public record UserVersion(String userId, long dataVersion) {}
@@ -0,0 +1,21 @@
+package com.example.back.repositories;
+
+import com.example.back.entities.AnalyticsReportEntity;
+import com.example.back.projections.UserVersion;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AnalyticsReportRepository extends JpaRepository<AnalyticsReportEntity, String> {
+    // users that wrote entries since their report was built, or never got one
+    @Query("select new com.example.back.projections.UserVersion(u.id, u.dataVersion) from UserEntity u " +
+           "where u.dataVersion > 0 and not exists (select r.userId from AnalyticsReportEntity r " +
+           "where r.userId = u.id and r.dataVersion = u.dataVersion and r.model = :model) order by u.id")
+    List<UserVersion> findStale(@Param("model") String model, Pageable pageable);
+}
@@ -0,0 +1,13 @@
+package com.example.back.repositories;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import com.example.back.entities.EntryEntity;
+
+public interface EntryBatchRepository {
+    void insertBatch(List<EntryEntity> entries);
+
+    List<Date> deleteByUserIdAndIds(String userId, Collection<String> ids);
+}
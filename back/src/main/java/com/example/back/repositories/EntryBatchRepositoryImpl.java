@@ -0,0 +1,56 @@
+package com.example.back.repositories;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.back.entities.EntryEntity;
+
+import lombok.AllArgsConstructor;
+
+@AllArgsConstructor
+public class EntryBatchRepositoryImpl implements EntryBatchRepository {
+
+    private static final String INSERT = "insert into \"entry\" (id, user_id, start_time, end_time, rate, notes) values (?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE = "select start_time from old table (delete from \"entry\" where user_id = ? and id in (%s))";
+
+    private JdbcTemplate jdbcTemplate;
+
+    // plain JDBC batch: no entity state, no per-row id round trips, one statement execution per chunk
+    @Override
+    public void insertBatch(List<EntryEntity> entries) {
+        for (EntryEntity entryEntity : entries) {
+            if (entryEntity.getId() == null) {
+                entryEntity.setId(UUID.randomUUID().toString());
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT, entries, entries.size(), (statement, entryEntity) -> {
+            statement.setString(1, entryEntity.getId());
+            statement.setString(2, entryEntity.getUserId());
+            statement.setTimestamp(3, new Timestamp(entryEntity.getStart().getTime()));
+            statement.setTimestamp(4, new Timestamp(entryEntity.getEnd().getTime()));
+            statement.setInt(5, entryEntity.getRate());
+            statement.setString(6, entryEntity.getNotes());
+        });
+    }
+
+    // H2 delta table: the delete hands back the start of every removed row, so rollups need no separate select
+    @Override
+    public List<Date> deleteByUserIdAndIds(String userId, Collection<String> ids) {
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(userId);
+        args.addAll(ids);
+
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query(DELETE.formatted(placeholders), (resultSet, row) -> new Date(resultSet.getTimestamp(1).getTime()), args.toArray());
+    }
+
+}
@@ -1,13 +1,74 @@
 package com.example.back.repositories;
 
 import com.example.back.entities.EntryEntity;
+import com.example.back.projections.EntryPoint;
+import com.example.back.projections.EntryRow;
 
+import jakarta.persistence.QueryHint;
+
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface EntryRepository extends JpaRepository<EntryEntity, String> {
+public interface EntryRepository extends JpaRepository<EntryEntity, String>, EntryBatchRepository {
     List<EntryEntity> getByUserId(String userId);
+
+    Optional<EntryEntity> findByIdAndUserId(String id, String userId);
+
+    @Query("select e from EntryEntity e where e.userId = :userId and e.start >= :from and e.start < :to " +
+           "and (e.start > :afterStart or (e.start = :afterStart and e.id > :afterId)) order by e.start, e.id")
+    List<EntryEntity> findPage(@Param("userId") String userId, @Param("from") Date from, @Param("to") Date to,
+                               @Param("afterStart") Date afterStart, @Param("afterId") String afterId, Pageable pageable);
+
+    @Query("select new com.example.back.projections.EntryPoint(e.id, e.start, e.end, e.rate) from EntryEntity e " +
+           "where e.userId = :userId and e.start >= :from and e.start < :to " +
+           "and (e.start > :afterStart or (e.start = :afterStart and e.id > :afterId)) order by e.start, e.id")
+    List<EntryPoint> findPointsPage(@Param("userId") String userId, @Param("from") Date from, @Param("to") Date to,
+                                    @Param("afterStart") Date afterStart, @Param("afterId") String afterId, Pageable pageable);
+
+    @Query("select new com.example.back.projections.EntryPoint(e.id, e.start, e.end, e.rate) from EntryEntity e " +
+           "where e.userId = :userId and e.start >= :from and e.start < :to order by e.start, e.id")
+    List<EntryPoint> findPoints(@Param("userId") String userId, @Param("from") Date from, @Param("to") Date to);
+
+    @Query("select min(e.start) from EntryEntity e where e.userId = :userId")
+    Date findFirstStart(@Param("userId") String userId);
+
+    @Query("select max(e.start) from EntryEntity e where e.userId = :userId")
+    Date findLastStart(@Param("userId") String userId);
+
+    @Query("select distinct e.userId from EntryEntity e")
+    List<String> findUserIds();
+
+    @Query("select new com.example.back.projections.EntryRow(e.id, e.start, e.end, e.rate, e.notes) " +
+           "from EntryEntity e where e.userId = :userId")
+    List<EntryRow> findRowsByUserId(@Param("userId") String userId);
+
+    @Query("select count(e) from EntryEntity e where e.userId = :userId " +
+           "and (e.start < :untilStart or (e.start = :untilStart and e.id <= :untilId))")
+    long countUpTo(@Param("userId") String userId, @Param("untilStart") Date untilStart, @Param("untilId") String untilId);
+
+    @Query("select new com.example.back.projections.EntryRow(e.id, e.start, e.end, e.rate, e.notes) from EntryEntity e " +
+           "where e.userId = :userId and (e.start > :afterStart or (e.start = :afterStart and e.id > :afterId)) order by e.start, e.id")
+    List<EntryRow> findRowsAfter(@Param("userId") String userId, @Param("afterStart") Date afterStart,
+                                 @Param("afterId") String afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.back.projections.EntryRow(e.id, e.start, e.end, e.rate, e.notes) " +
+           "from EntryEntity e where e.userId = :userId order by e.start, e.id")
+    Stream<EntryRow> streamRowsByUserId(@Param("userId") String userId);
+
+    @Modifying
+    @Query("delete from EntryEntity e where e.userId = :userId and e.start >= :from and e.start < :to")
+    int deleteByUserIdAndRange(@Param("userId") String userId, @Param("from") Date from, @Param("to") Date to);
 }
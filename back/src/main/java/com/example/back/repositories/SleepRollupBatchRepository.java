@@ -0,0 +1,9 @@
+package com.example.back.repositories;
+
+import java.util.Collection;
+
+import com.example.back.entities.SleepRollupEntity;
+
+public interface SleepRollupBatchRepository {
+    void insertBatch(Collection<SleepRollupEntity> rollups);
+}
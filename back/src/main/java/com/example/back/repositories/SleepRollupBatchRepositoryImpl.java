@@ -0,0 +1,43 @@
+package com.example.back.repositories;
+
+import java.sql.Date;
+import java.util.Collection;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.back.entities.SleepRollupEntity;
+
+import lombok.AllArgsConstructor;
+
+@AllArgsConstructor
+public class SleepRollupBatchRepositoryImpl implements SleepRollupBatchRepository {
+
+    private static final String INSERT = "insert into sleep_rollup (user_id, period, period_start, nights, total_minutes, rate_sum, rate_min, rate_max, " +
+        "bedtime_sum, bedtime_squares, wake_sum, wake_squares) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private JdbcTemplate jdbcTemplate;
+
+    // rows are always freshly recomputed after a range delete, so a plain insert never needs the select that merge would do
+    @Override
+    public void insertBatch(Collection<SleepRollupEntity> rollups) {
+        if (rollups.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT, rollups, rollups.size(), (statement, rollup) -> {
+            statement.setString(1, rollup.getUserId());
+            statement.setString(2, rollup.getPeriod().name());
+            statement.setDate(3, Date.valueOf(rollup.getPeriodStart()));
+            statement.setInt(4, rollup.getNights());
+            statement.setLong(5, rollup.getTotalMinutes());
+            statement.setInt(6, rollup.getRateSum());
+            statement.setInt(7, rollup.getRateMin());
+            statement.setInt(8, rollup.getRateMax());
+            statement.setLong(9, rollup.getBedtimeSum());
+            statement.setLong(10, rollup.getBedtimeSquares());
+            statement.setLong(11, rollup.getWakeSum());
+            statement.setLong(12, rollup.getWakeSquares());
+        });
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.example.back.repositories;
+
+import com.example.back.entities.SleepRollupEntity;
+import com.example.back.entities.SleepRollupEntity.Period;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SleepRollupRepository extends JpaRepository<SleepRollupEntity, SleepRollupEntity.Key>, SleepRollupBatchRepository {
+    List<SleepRollupEntity> findByUserIdAndPeriodAndPeriodStartBetweenOrderByPeriodStart(String userId, Period period, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("delete from SleepRollupEntity r where r.userId = :userId and r.periodStart >= :from and r.periodStart <= :to")
+    int deleteRange(@Param("userId") String userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("delete from SleepRollupEntity r where r.userId = :userId")
+    int deleteByUser(@Param("userId") String userId);
+}
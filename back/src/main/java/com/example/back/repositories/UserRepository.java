@@ -5,10 +5,20 @@ import com.example.back.entities.UserEntity;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, String> {
     Optional<UserEntity> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    @Query("select u.dataVersion from UserEntity u where u.id = :id")
+    Optional<Long> findDataVersionById(@Param("id") String id);
+
+    @Modifying
+    @Query("update UserEntity u set u.dataVersion = u.dataVersion + 1 where u.id = :id")
+    int incrementDataVersion(@Param("id") String id);
 }
@@ -0,0 +1,40 @@
+package com.example.back.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// migrates the hash cost after a verified sign-in like DaoAuthenticationProvider does, except that a rehash the
+// bounded hashing pool cannot take is skipped: it is retried on a later sign-in and never fails this one
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final PasswordEncoder passwordEncoder;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+
+    public RehashingAuthenticationProvider(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                                           UserDetailsPasswordService userDetailsPasswordService) {
+        this.passwordEncoder = passwordEncoder;
+        this.userDetailsPasswordService = userDetailsPasswordService;
+        setUserDetailsService(userDetailsService);
+        setPasswordEncoder(passwordEncoder);
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+        UserDetails current = user;
+        if (authentication.getCredentials() != null && passwordEncoder.upgradeEncoding(user.getPassword())) {
+            try {
+                String rehashed = passwordEncoder.encode(authentication.getCredentials().toString());
+                current = userDetailsPasswordService.updatePassword(user, rehashed);
+            } catch (AuthenticationServiceException e) {
+                logger.debug("Hashing pool busy, password cost is migrated on a later sign-in");
+            }
+        }
+        return super.createSuccessAuthentication(principal, authentication, current);
+    }
+
+}
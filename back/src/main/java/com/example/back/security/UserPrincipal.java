@@ -0,0 +1,42 @@
+package com.example.back.security;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.example.back.entities.UserEntity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserPrincipal implements UserDetails, CredentialsContainer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+    private final String username;
+    private String password;
+    private final String role;
+
+    public static UserPrincipal of(UserEntity userEntity) {
+        return new UserPrincipal(userEntity.getId(), userEntity.getUsername(), userEntity.getPassword(), userEntity.getRole());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority(role));
+    }
+
+    // the hash is only needed while authenticating, so it never ends up in the session
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+
+}
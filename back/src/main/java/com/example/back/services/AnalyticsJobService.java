@@ -0,0 +1,176 @@
+package com.example.back.services;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import com.example.back.configurations.AnalyticsJobProperties;
+import com.example.back.exceptions.JobNotExistsException;
+import com.example.back.exceptions.JobRejectedException;
+import com.example.back.exceptions.LlmRequestException;
+
+@Service
+public class AnalyticsJobService implements DisposableBean {
+
+    public enum Status { PENDING, RUNNING, DONE, FAILED }
+
+    private final AnalyticsReportService analyticsReportService;
+    private final EntryService entryService;
+    private final long retentionMillis;
+
+    private final ThreadPoolExecutor executor;
+    // streams stay open for the whole answer, on the job pool a few of them would starve every queued job
+    private final ThreadPoolExecutor streamExecutor;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    // identical unfinished jobs share one entry, keyed by user and job kind
+    private final Map<String, Job> activeJobs = new ConcurrentHashMap<>();
+
+    public AnalyticsJobService(AnalyticsReportService analyticsReportService, EntryService entryService, AnalyticsJobProperties properties) {
+        this.analyticsReportService = analyticsReportService;
+        this.entryService = entryService;
+        this.retentionMillis = properties.retention().toMillis();
+
+        this.executor = newExecutor("analytics-", properties.threads(), new ArrayBlockingQueue<>(properties.queueCapacity()));
+        this.streamExecutor = newExecutor("analytics-stream-", properties.streamThreads(), new SynchronousQueue<>());
+    }
+
+    private static ThreadPoolExecutor newExecutor(String namePrefix, int threads, BlockingQueue<Runnable> queue) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(
+            threads,
+            threads,
+            60, TimeUnit.SECONDS,
+            queue,
+            runnable -> {
+                Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    public JobView submitForAll(String userId) throws JobRejectedException {
+        purgeExpired();
+
+        String key = userId + ":forall";
+        Job created = new Job(UUID.randomUUID().toString(), userId, key);
+        Job job = activeJobs.computeIfAbsent(key, k -> created);
+
+        if (job != created) {
+            return job.view();
+        }
+
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, () -> currentReport(userId)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            activeJobs.remove(key, job);
+            throw new JobRejectedException();
+        }
+
+        return job.view();
+    }
+
+    // same path as the synchronous endpoint: a stored report for this version, or a new one that is then stored
+    private String currentReport(String userId) throws LlmRequestException {
+        long dataVersion = entryService.getDataVersion(userId);
+        Optional<String> stored = analyticsReportService.findCurrentReport(userId, dataVersion);
+        return stored.isPresent() ? stored.get() : analyticsReportService.generateReport(userId, dataVersion);
+    }
+
+    public void runStream(Runnable task) throws JobRejectedException {
+        try {
+            streamExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw new JobRejectedException();
+        }
+    }
+
+    public JobView getJob(String jobId, String userId) throws JobNotExistsException {
+        purgeExpired();
+        return findJob(jobId, userId).view();
+    }
+
+    public CompletableFuture<JobView> awaitJob(String jobId, String userId) throws JobNotExistsException {
+        Job job = findJob(jobId, userId);
+        return job.completion.thenApply(result -> job.view());
+    }
+
+    private Job findJob(String jobId, String userId) throws JobNotExistsException {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.userId.equals(userId)) {
+            throw new JobNotExistsException();
+        }
+        return job;
+    }
+
+    private void run(Job job, JobTask task) {
+        job.status = Status.RUNNING;
+        try {
+            job.result = task.run();
+            job.status = Status.DONE;
+        } catch (LlmRequestException | RuntimeException e) {
+            job.result = e.getMessage();
+            job.status = Status.FAILED;
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            activeJobs.remove(job.key, job);
+            job.completion.complete(job.result);
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.finishedAt != 0 && now - job.finishedAt > retentionMillis);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        streamExecutor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface JobTask {
+        String run() throws LlmRequestException;
+    }
+
+    private static class Job {
+        private final String id;
+        private final String userId;
+        private final String key;
+        private final CompletableFuture<String> completion = new CompletableFuture<>();
+
+        private volatile Status status = Status.PENDING;
+        private volatile String result;
+        private volatile long finishedAt;
+
+        private Job(String id, String userId, String key) {
+            this.id = id;
+            this.userId = userId;
+            this.key = key;
+        }
+
+        private JobView view() {
+            return new JobView(id, status, result);
+        }
+    }
+
+    public record JobView(String jobId, Status status, String data) {};
+
+}
@@ -0,0 +1,34 @@
+package com.example.back.services;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Service;
+
+import com.example.back.configurations.AnalyticsRateLimitProperties;
+
+@Service
+public class AnalyticsRateLimiter {
+
+    public enum Budget { ENTRY, ALL_ENTRIES }
+
+    private final Map<Budget, TokenBucketLimiter> limiters = new EnumMap<>(Budget.class);
+
+    public AnalyticsRateLimiter(AnalyticsRateLimitProperties properties) {
+        limiters.put(Budget.ENTRY, new TokenBucketLimiter(
+            properties.entryCapacity(), properties.entryRefill(), properties.stripes(), properties.idleTimeout()));
+        limiters.put(Budget.ALL_ENTRIES, new TokenBucketLimiter(
+            properties.allEntriesCapacity(), properties.allEntriesRefill(), properties.stripes(), properties.idleTimeout()));
+    }
+
+    // 0 means go ahead, anything else is the Retry-After value in whole seconds
+    public long tryAcquire(Budget budget, String userId) {
+        long waitNanos = limiters.get(budget).tryAcquire(userId);
+        if (waitNanos == 0) {
+            return 0;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+}
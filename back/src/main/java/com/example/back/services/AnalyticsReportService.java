@@ -0,0 +1,224 @@
+package com.example.back.services;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.back.configurations.AnalyticsPrecomputeProperties;
+import com.example.back.configurations.AnalyticsSummaryProperties;
+import com.example.back.entities.AnalyticsReportEntity;
+import com.example.back.exceptions.LlmRequestException;
+import com.example.back.projections.EntryRow;
+import com.example.back.projections.UserVersion;
+import com.example.back.repositories.AnalyticsReportRepository;
+import com.example.back.services.EntryService.EntryDelta;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@AllArgsConstructor
+public class AnalyticsReportService {
+
+    // the same order as the entry pages: start, then id
+    private static final Comparator<EntryRow> COVERAGE_ORDER = Comparator.comparing(EntryRow::start).thenComparing(EntryRow::id);
+
+    private AnalyticsReportRepository analyticsReportRepository;
+    private AnalyticsService analyticsService;
+    private LlmClient llmClient;
+    private EntryService entryService;
+    private AnalyticsPrecomputeProperties properties;
+    private AnalyticsSummaryProperties summaryProperties;
+
+    public Optional<String> findCurrentReport(String userId, long dataVersion) {
+        return analyticsReportRepository.findById(userId)
+            .filter(report -> report.getDataVersion() == dataVersion && report.getModel().equals(llmClient.getModel()))
+            .map(AnalyticsReportEntity::getReport);
+    }
+
+    // the version must be read before the entries, so a write that races the generation leaves the report stale, never wrong
+    public String generateReport(String userId, long dataVersion) throws LlmRequestException {
+        return generateReport(userId, dataVersion, null);
+    }
+
+    // the same report, with its text handed to onDelta while the provider writes it
+    public String streamReport(String userId, long dataVersion, Consumer<String> onDelta) throws LlmRequestException {
+        return generateReport(userId, dataVersion, onDelta);
+    }
+
+    private String generateReport(String userId, long dataVersion, Consumer<String> onDelta) throws LlmRequestException {
+        Optional<AnalyticsReportEntity> previous = analyticsReportRepository.findById(userId)
+            .filter(report -> report.getModel().equals(llmClient.getModel()));
+
+        if (previous.isPresent() && mayUpdate(previous.get())) {
+            AnalyticsReportEntity last = previous.get();
+            EntryDelta delta = entryService.getEntriesAfter(userId, last.getCoveredUntil(), last.getCoveredEntryId(), summaryProperties.maxNewEntries());
+
+            // an unchanged count up to the covered night means the nights were only appended to; an update also needs
+            // room for every new night next to the previous report, otherwise the whole history is summarized afresh
+            List<EntryRow> added = delta.added();
+            if (delta.coveredCount() == last.getEntryCount() && !added.isEmpty() && added.size() <= summaryProperties.maxNewEntries()
+                && analyticsService.newEntriesFit(last.getReport(), added)) {
+                String report = onDelta == null
+                    ? analyticsService.getAnswerForNewEntries(userId, last.getReport(), added)
+                    : analyticsService.streamAnswerForNewEntries(userId, last.getReport(), added, onDelta);
+                EntryRow newest = added.get(added.size() - 1);
+                storeReport(last.toBuilder()
+                    .dataVersion(dataVersion)
+                    .report(report)
+                    .generatedAt(new Date())
+                    .entryCount(last.getEntryCount() + added.size())
+                    .coveredUntil(newest.start())
+                    .coveredEntryId(newest.id())
+                    .incrementalRuns(last.getIncrementalRuns() + 1)
+                    .build());
+                return report;
+            }
+        }
+
+        List<EntryRow> entries = entryService.getEntryRows(userId);
+        String report = onDelta == null
+            ? analyticsService.getAnswerForEntries(userId, entries)
+            : analyticsService.streamAnswerForEntries(userId, entries, onDelta);
+        EntryRow newest = entries.stream().max(COVERAGE_ORDER).orElse(null);
+        Date now = new Date();
+        storeReport(AnalyticsReportEntity.builder()
+            .userId(userId)
+            .dataVersion(dataVersion)
+            .model(llmClient.getModel())
+            .report(report)
+            .generatedAt(now)
+            .entryCount(entries.size())
+            .coveredUntil(newest == null ? null : newest.start())
+            .coveredEntryId(newest == null ? null : newest.id())
+            .incrementalRuns(0)
+            .fullAt(now)
+            .build());
+        return report;
+    }
+
+    // updates drift from the data over time, so the whole history is sent again every few updates and after a while
+    private boolean mayUpdate(AnalyticsReportEntity report) {
+        return report.getCoveredUntil() != null
+            && report.getFullAt() != null
+            && report.getIncrementalRuns() < summaryProperties.fullRefreshEvery()
+            && report.getFullAt().getTime() > System.currentTimeMillis() - summaryProperties.fullRefreshAge().toMillis();
+    }
+
+    // an older generation finishing late must not replace a newer report; a lost race only costs a regeneration
+    public void storeReport(AnalyticsReportEntity report) {
+        Optional<AnalyticsReportEntity> existing = analyticsReportRepository.findById(report.getUserId());
+        if (existing.isPresent() && existing.get().getDataVersion() > report.getDataVersion() && existing.get().getModel().equals(report.getModel())) {
+            return;
+        }
+
+        analyticsReportRepository.save(report);
+    }
+
+    @Scheduled(cron = "${analytics.precompute.cron}", zone = "${analytics.zone}")
+    public void precomputeReports() {
+        List<UserVersion> stale = analyticsReportRepository.findStale(llmClient.getModel(), PageRequest.of(0, properties.maxUsersPerRun()));
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        log.info("Pre-computing analytics reports for {} users", stale.size());
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(properties.parallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "report-precompute-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Backoff backoff = new Backoff(properties.backoffInitial().toMillis(), properties.backoffMax().toMillis(), properties.maxConsecutiveFailures());
+        AtomicInteger generated = new AtomicInteger();
+        for (UserVersion user : stale) {
+            workers.execute(() -> {
+                if (backoff.exhausted() || !backoff.awaitTurn()) {
+                    return;
+                }
+
+                try {
+                    generateReport(user.userId(), user.dataVersion());
+                    generated.incrementAndGet();
+                    backoff.success();
+                } catch (LlmRequestException e) {
+                    backoff.failure();
+                }
+            });
+        }
+
+        workers.shutdown();
+        try {
+            // the provider timeouts bound every single report, so this cannot hang
+            workers.awaitTermination(1, TimeUnit.DAYS);
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        log.info("Pre-computed {} of {} analytics reports{}", generated.get(), stale.size(),
+            backoff.exhausted() ? ", stopped after repeated provider errors" : "");
+    }
+
+    // shared by the workers of one run: every provider error doubles the pause before the next report
+    static class Backoff {
+        private final long initialMillis;
+        private final long maxMillis;
+        private final int maxFailures;
+
+        private int failures = 0;
+        private long pauseUntil = 0;
+
+        Backoff(long initialMillis, long maxMillis, int maxFailures) {
+            this.initialMillis = initialMillis;
+            this.maxMillis = maxMillis;
+            this.maxFailures = maxFailures;
+        }
+
+        synchronized boolean exhausted() {
+            return failures >= maxFailures;
+        }
+
+        synchronized void success() {
+            failures = 0;
+            pauseUntil = 0;
+        }
+
+        synchronized void failure() {
+            failures++;
+            long pause = Math.min(maxMillis, initialMillis << Math.min(failures - 1, 30));
+            pauseUntil = System.currentTimeMillis() + pause;
+        }
+
+        boolean awaitTurn() {
+            long wait;
+            synchronized (this) {
+                wait = pauseUntil - System.currentTimeMillis();
+            }
+
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return !exhausted();
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.example.back.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+
+import com.example.back.configurations.AnalyticsCacheProperties;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Service
+public class AnswerCacheService {
+
+    private final int maxSize;
+    private final long ttlMillis;
+
+    // access-ordered, so the eldest entry is always the least recently used one
+    private final LinkedHashMap<String, CachedAnswer> answers = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // the statistics are global, so they are published with the other metrics rather than to users
+    public AnswerCacheService(AnalyticsCacheProperties properties, MeterRegistry meterRegistry) {
+        this.maxSize = properties.maxSize();
+        this.ttlMillis = properties.ttl().toMillis();
+
+        FunctionCounter.builder("analytics.cache.requests", hits, AtomicLong::get)
+            .tag("result", "hit")
+            .register(meterRegistry);
+        FunctionCounter.builder("analytics.cache.requests", misses, AtomicLong::get)
+            .tag("result", "miss")
+            .register(meterRegistry);
+        FunctionCounter.builder("analytics.cache.evictions", evictions, AtomicLong::get)
+            .register(meterRegistry);
+        Gauge.builder("analytics.cache.size", this, AnswerCacheService::size)
+            .register(meterRegistry);
+    }
+
+    public String key(String model, String prompt) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(model.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(prompt.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public synchronized Optional<String> get(String key) {
+        CachedAnswer cachedAnswer = answers.get(key);
+
+        if (cachedAnswer == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        if (cachedAnswer.expiresAt() < System.currentTimeMillis()) {
+            answers.remove(key);
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        return Optional.of(cachedAnswer.answer());
+    }
+
+    public synchronized void put(String key, String userId, String answer) {
+        if (maxSize <= 0) {
+            return;
+        }
+
+        answers.put(key, new CachedAnswer(userId, answer, System.currentTimeMillis() + ttlMillis));
+
+        Iterator<CachedAnswer> iterator = answers.values().iterator();
+        while (answers.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public synchronized void evictUser(String userId) {
+        Iterator<Map.Entry<String, CachedAnswer>> iterator = answers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().userId().equals(userId)) {
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return answers.size();
+    }
+
+    private record CachedAnswer(String userId, String answer, long expiresAt) {};
+
+}
@@ -0,0 +1,94 @@
+package com.example.back.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.back.projections.EntryRow;
+import com.example.back.repositories.EntryRepository;
+import com.example.back.services.EntryImportService.Format;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import lombok.AllArgsConstructor;
+
+@Service
+@AllArgsConstructor
+public class EntryExportService {
+
+    private EntryRepository entryRepository;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    // rows come off a database cursor as projections, so nothing enters the persistence context
+    @Transactional(readOnly = true)
+    public long exportEntries(String userId, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long exported = 0;
+
+        try (Stream<EntryRow> rows = entryRepository.streamRowsByUserId(userId)) {
+            Iterator<EntryRow> iterator = rows.iterator();
+
+            if (format == Format.CSV) {
+                writer.write("start,end,rate,notes\n");
+                while (iterator.hasNext()) {
+                    writeCsv(writer, iterator.next());
+                    exported++;
+                }
+            } else {
+                JsonGenerator generator = jsonFactory.createGenerator(writer);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                while (iterator.hasNext()) {
+                    writeJson(generator, iterator.next());
+                    exported++;
+                }
+                generator.close();
+            }
+        }
+
+        writer.flush();
+        return exported;
+    }
+
+    private void writeJson(JsonGenerator generator, EntryRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", row.id());
+        generator.writeStringField("start", Instant.ofEpochMilli(row.start().getTime()).toString());
+        generator.writeStringField("end", Instant.ofEpochMilli(row.end().getTime()).toString());
+        generator.writeNumberField("rate", row.rate());
+        generator.writeStringField("notes", row.notes() == null ? "" : row.notes());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    // same column layout the CSV import accepts, so an export can be imported again
+    private void writeCsv(Writer writer, EntryRow row) throws IOException {
+        writer.write(Instant.ofEpochMilli(row.start().getTime()).toString());
+        writer.write(',');
+        writer.write(Instant.ofEpochMilli(row.end().getTime()).toString());
+        writer.write(',');
+        writer.write(Integer.toString(row.rate()));
+        writer.write(',');
+
+        String notes = row.notes() == null ? "" : row.notes();
+        if (notes.indexOf(',') >= 0 || notes.indexOf('"') >= 0 || notes.indexOf('\n') >= 0 || notes.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(notes.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(notes);
+        }
+        writer.write('\n');
+    }
+
+}
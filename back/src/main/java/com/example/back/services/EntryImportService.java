@@ -0,0 +1,223 @@
+package com.example.back.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.example.back.configurations.EntryProperties;
+import com.example.back.entities.EntryEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+
+@Service
+@AllArgsConstructor
+public class EntryImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final int MAX_NOTES_LENGTH = 255;
+    // two dates, a rate and the longest notes with every character a doubled quote still fit
+    private static final int MAX_CSV_ROW_LENGTH = 1024;
+
+    private EntryService entryService;
+    private EntryProperties entryProperties;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // batches commit one by one, so a failure midway keeps the earlier ones; the result then says how far it got
+    public ImportResult importEntries(String userId, InputStream body, Format format) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<EntryEntity> chunk = new ArrayList<>(entryProperties.importBatchSize());
+        List<RowError> errors = new ArrayList<>();
+        long imported = 0;
+        long rejected = 0;
+        long lineNumber = 0;
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+
+                if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && line.startsWith("start"))) {
+                    continue;
+                }
+
+                // a quoted CSV field may go on over several lines, the export writes notes with line breaks that way
+                long rowNumber = lineNumber;
+                if (format == Format.CSV) {
+                    String next;
+                    while (hasOpenQuote(line) && line.length() <= MAX_CSV_ROW_LENGTH && (next = reader.readLine()) != null) {
+                        lineNumber++;
+                        line = line + "\n" + next;
+                    }
+                }
+
+                EntryEntity entryEntity;
+                try {
+                    entryEntity = format == Format.NDJSON ? parseJson(line) : parseCsv(line);
+                    validate(entryEntity);
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                    if (errors.size() < entryProperties.importMaxReportedErrors()) {
+                        errors.add(new RowError(rowNumber, e.getMessage()));
+                    }
+                    continue;
+                }
+
+                entryEntity.setUserId(userId);
+                chunk.add(entryEntity);
+
+                if (chunk.size() == entryProperties.importBatchSize()) {
+                    entryService.insertEntries(userId, chunk);
+                    imported += chunk.size();
+                    chunk = new ArrayList<>(entryProperties.importBatchSize());
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                entryService.insertEntries(userId, chunk);
+                imported += chunk.size();
+            }
+        } catch (IOException e) {
+            return new ImportResult(imported, rejected, errors, "Upload interrupted");
+        } catch (DataAccessException e) {
+            return new ImportResult(imported, rejected, errors, "Database error");
+        }
+
+        return new ImportResult(imported, rejected, errors, null);
+    }
+
+    private EntryEntity parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+
+        EntryEntity entryEntity = new EntryEntity();
+        entryEntity.setStart(parseDate(node.path("start")));
+        entryEntity.setEnd(parseDate(node.path("end")));
+        entryEntity.setRate(parseRate(node.path("rate").asText(null)));
+        entryEntity.setNotes(node.path("notes").asText(""));
+        return entryEntity;
+    }
+
+    private EntryEntity parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() < 3 || fields.size() > 4) {
+            throw new IllegalArgumentException("Expected start,end,rate[,notes]");
+        }
+
+        EntryEntity entryEntity = new EntryEntity();
+        entryEntity.setStart(parseDate(fields.get(0)));
+        entryEntity.setEnd(parseDate(fields.get(1)));
+        entryEntity.setRate(parseRate(fields.get(2)));
+        entryEntity.setNotes(fields.size() == 4 ? fields.get(3) : "");
+        return entryEntity;
+    }
+
+    // doubled quotes inside a field count twice, so an odd count means a field is still open
+    private boolean hasOpenQuote(String line) {
+        return line.chars().filter(c -> c == '"').count() % 2 == 1;
+    }
+
+    private List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private Date parseDate(JsonNode node) {
+        if (node.isNumber()) {
+            return new Date(node.asLong());
+        }
+        return parseDate(node.asText(null));
+    }
+
+    // accepts epoch milliseconds or an ISO-8601 instant
+    private Date parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing start or end");
+        }
+
+        String trimmed = value.trim();
+        try {
+            if (trimmed.chars().allMatch(Character::isDigit)) {
+                return new Date(Long.parseLong(trimmed));
+            }
+            return Date.from(Instant.parse(trimmed));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + trimmed);
+        }
+    }
+
+    private int parseRate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing rate");
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid rate: " + value);
+        }
+    }
+
+    private void validate(EntryEntity entryEntity) {
+        if (!entryEntity.getEnd().after(entryEntity.getStart())) {
+            throw new IllegalArgumentException("End must be after start");
+        }
+        if (entryEntity.getRate() < 1 || entryEntity.getRate() > 10) {
+            throw new IllegalArgumentException("Rate must be between 1 and 10");
+        }
+        if (entryEntity.getNotes().length() > MAX_NOTES_LENGTH) {
+            throw new IllegalArgumentException("Notes are longer than " + MAX_NOTES_LENGTH + " characters");
+        }
+    }
+
+    public record RowError(long line, String error) {};
+
+    // failure is null when the whole body was read and stored
+    public record ImportResult(long imported, long rejected, List<RowError> errors, String failure) {};
+
+}
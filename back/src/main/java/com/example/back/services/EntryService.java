@@ -1,12 +1,24 @@
 package com.example.back.services;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.back.configurations.EntryProperties;
 import com.example.back.entities.EntryEntity;
 import com.example.back.exceptions.EntryNotExistsException;
+import com.example.back.exceptions.InvalidCursorException;
+import com.example.back.exceptions.InvalidDeleteRequestException;
+import com.example.back.projections.EntryPoint;
+import com.example.back.projections.EntryRow;
 import com.example.back.repositories.EntryRepository;
+import com.example.back.repositories.UserRepository;
 
 import lombok.AllArgsConstructor;
 
@@ -14,22 +26,231 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor
 public class EntryService {
 
+    private static final Date MIN_DATE = new Date(0);
+    private static final Date MAX_DATE = new Date(253402300799000L); // 9999-12-31T23:59:59Z
+    private static final long MINUTE = 60_000L;
+
     private EntryRepository entryRepository;
+    private UserRepository userRepository;
+    private SleepRollupService sleepRollupService;
+    private AnswerCacheService answerCacheService;
+    private EntryProperties entryProperties;
+
+    // answered from the user row alone, so conditional requests never touch the entry table
+    public long getDataVersion(String userId) {
+        return userRepository.findDataVersionById(userId).orElse(0L);
+    }
 
     public List<EntryEntity> getUserEntries(String userId) {
         return entryRepository.getByUserId(userId);
     }
 
-    public EntryEntity getEntry(String entryId) throws EntryNotExistsException {
-        return entryRepository.findById(entryId).orElseThrow(() -> new EntryNotExistsException());
+    // the analytics snapshot: plain rows read in one short transaction, so nothing stays attached
+    // to a session or holds a connection while the provider is thinking
+    @Transactional(readOnly = true)
+    public List<EntryRow> getEntryRows(String userId) {
+        return entryRepository.findRowsByUserId(userId);
+    }
+
+    // one snapshot of what changed behind a report: how many entries are still at or before its newest night,
+    // and up to limit + 1 entries after it, so the caller can tell whether there were more
+    @Transactional(readOnly = true)
+    public EntryDelta getEntriesAfter(String userId, Date coveredUntil, String coveredEntryId, int limit) {
+        return new EntryDelta(
+            entryRepository.countUpTo(userId, coveredUntil, coveredEntryId),
+            entryRepository.findRowsAfter(userId, coveredUntil, coveredEntryId, PageRequest.of(0, limit + 1))
+        );
+    }
+
+    public EntryPage getEntriesPage(String userId, Date from, Date to, String cursor, Integer limit) throws InvalidCursorException {
+        PageQuery query = pageQuery(from, to, cursor, limit);
+
+        // one extra row tells whether another page exists
+        List<EntryEntity> entries = entryRepository.findPage(
+            userId,
+            query.from(),
+            query.to(),
+            query.afterStart(),
+            query.afterId(),
+            PageRequest.of(0, query.pageSize() + 1)
+        );
+
+        String nextCursor = null;
+        if (entries.size() > query.pageSize()) {
+            entries = entries.subList(0, query.pageSize());
+            EntryEntity last = entries.get(query.pageSize() - 1);
+            nextCursor = encodeCursor(last.getStart(), last.getId());
+        }
+
+        return new EntryPage(entries, nextCursor);
+    }
+
+    // reads only the charted columns as projections and packs them into parallel arrays
+    public CompactEntryPage getCompactEntriesPage(String userId, Date from, Date to, String cursor, Integer limit) throws InvalidCursorException {
+        PageQuery query = pageQuery(from, to, cursor, limit);
+
+        List<EntryPoint> points = entryRepository.findPointsPage(
+            userId,
+            query.from(),
+            query.to(),
+            query.afterStart(),
+            query.afterId(),
+            PageRequest.of(0, query.pageSize() + 1)
+        );
+
+        String nextCursor = null;
+        if (points.size() > query.pageSize()) {
+            points = points.subList(0, query.pageSize());
+            EntryPoint last = points.get(query.pageSize() - 1);
+            nextCursor = encodeCursor(last.start(), last.id());
+        }
+
+        int count = points.size();
+        long baseMinute = count == 0 ? 0 : points.get(0).start().getTime() / MINUTE;
+        long[] startDeltas = new long[count];
+        long[] durations = new long[count];
+        byte[] rates = new byte[count];
+
+        long previousMinute = baseMinute;
+        for (int i = 0; i < count; i++) {
+            EntryPoint point = points.get(i);
+            long startMinute = point.start().getTime() / MINUTE;
+            startDeltas[i] = startMinute - previousMinute;
+            durations[i] = point.end().getTime() / MINUTE - startMinute;
+            rates[i] = (byte) point.rate();
+            previousMinute = startMinute;
+        }
+
+        return new CompactEntryPage(baseMinute, startDeltas, durations, rates, nextCursor);
+    }
+
+    private PageQuery pageQuery(Date from, Date to, String cursor, Integer limit) throws InvalidCursorException {
+        Date rangeStart = from == null ? MIN_DATE : from;
+        Date rangeEnd = to == null ? MAX_DATE : to;
+
+        // without a cursor every row of the range is "after" the position
+        Date afterStart = new Date(rangeStart.getTime() - 1);
+        String afterId = "";
+
+        if (cursor != null && !cursor.isEmpty()) {
+            String decoded;
+            try {
+                decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidCursorException();
+            }
+
+            int separator = decoded.indexOf(':');
+            if (separator == -1) {
+                throw new InvalidCursorException();
+            }
+
+            try {
+                afterStart = new Date(Long.parseLong(decoded.substring(0, separator)));
+            } catch (NumberFormatException e) {
+                throw new InvalidCursorException();
+            }
+            afterId = decoded.substring(separator + 1);
+        }
+
+        int pageSize = limit == null || limit <= 0 ? entryProperties.defaultPageSize() : Math.min(limit, entryProperties.maxPageSize());
+
+        return new PageQuery(rangeStart, rangeEnd, afterStart, afterId, pageSize);
+    }
+
+    private static String encodeCursor(Date start, String id) {
+        String position = start.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
     }
 
+    // another user's entry looks exactly like a missing one
+    public EntryEntity getEntry(String userId, String entryId) throws EntryNotExistsException {
+        if (entryId == null) {
+            throw new EntryNotExistsException();
+        }
+        return entryRepository.findByIdAndUserId(entryId, userId).orElseThrow(() -> new EntryNotExistsException());
+    }
+
+    @Transactional
     public EntryEntity saveEntry(EntryEntity entryEntity) {
-        return entryRepository.save(entryEntity);
+        List<Date> starts = new ArrayList<>(2);
+        if (entryEntity.getId() != null) {
+            entryRepository.findById(entryEntity.getId()).ifPresent(previous -> starts.add(previous.getStart()));
+        }
+
+        EntryEntity saved = entryRepository.save(entryEntity);
+        starts.add(saved.getStart());
+
+        entriesChanged(saved.getUserId());
+        sleepRollupService.entriesChanged(saved.getUserId(), starts);
+        return saved;
+    }
+
+    @Transactional
+    public void insertEntries(String userId, List<EntryEntity> entries) {
+        entryRepository.insertBatch(entries);
+
+        entriesChanged(userId);
+        sleepRollupService.entriesChanged(userId, entries.stream().map(EntryEntity::getStart).toList());
+    }
+
+    // ownership is part of the delete statement, so rows of other users are never touched and never revealed
+    @Transactional
+    public void deleteEntry(String userId, String entryId) throws EntryNotExistsException {
+        if (entryId == null) {
+            throw new EntryNotExistsException();
+        }
+
+        List<Date> starts = entryRepository.deleteByUserIdAndIds(userId, List.of(entryId));
+        if (starts.isEmpty()) {
+            throw new EntryNotExistsException();
+        }
+
+        entriesChanged(userId);
+        sleepRollupService.entriesChanged(userId, starts);
+    }
+
+    @Transactional
+    public int deleteEntries(String userId, List<String> entryIds) throws InvalidDeleteRequestException {
+        if (entryIds == null || entryIds.isEmpty() || entryIds.size() > entryProperties.deleteMaxIds()) {
+            throw new InvalidDeleteRequestException();
+        }
+
+        List<Date> starts = entryRepository.deleteByUserIdAndIds(userId, entryIds);
+        if (!starts.isEmpty()) {
+            entriesChanged(userId);
+            sleepRollupService.entriesChanged(userId, starts);
+        }
+        return starts.size();
+    }
+
+    @Transactional
+    public int deleteEntries(String userId, Date from, Date to) throws InvalidDeleteRequestException {
+        if (from == null || to == null || !to.after(from)) {
+            throw new InvalidDeleteRequestException();
+        }
+
+        int deleted = entryRepository.deleteByUserIdAndRange(userId, from, to);
+        if (deleted > 0) {
+            entriesChanged(userId);
+            sleepRollupService.rangeChanged(userId, from, to);
+        }
+        return deleted;
     }
 
-    public void deleteEntry(String entryId) {
-        entryRepository.deleteById(entryId);
+    // the version bump also locks the user row until commit, which orders concurrent writers of one user
+    private void entriesChanged(String userId) {
+        userRepository.incrementDataVersion(userId);
+        answerCacheService.evictUser(userId);
     }
+
+    private record PageQuery(Date from, Date to, Date afterStart, String afterId, int pageSize) {};
+
+    public record EntryPage(List<EntryEntity> entries, String nextCursor) {};
+
+    // start of entry i is baseMinute + startDeltas[0..i] in epoch minutes, its end is that plus durations[i]
+    public record CompactEntryPage(long baseMinute, long[] startDeltas, long[] durations, byte[] rates, String nextCursor) {};
+
+    public record EntryDelta(long coveredCount, List<EntryRow> added) {};
     
 }
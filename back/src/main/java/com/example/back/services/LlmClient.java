@@ -0,0 +1,353 @@
+package com.example.back.services;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import com.example.back.configurations.LlmProperties;
+import com.example.back.exceptions.LlmRequestException;
+import com.example.back.services.LlmResponseParser.Completion;
+import com.example.back.services.LlmResponseParser.Usage;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class LlmClient implements DisposableBean {
+
+    private final LlmProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // the connection stream belongs to the HTTP client, the generator must not close it
+    private final JsonFactory jsonFactory = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final LlmResponseParser responseParser = new LlmResponseParser();
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final Semaphore callPermits;
+    private final CircuitBreaker circuitBreaker;
+
+    public LlmClient(LlmProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(properties.maxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.maxConnections());
+        connectionManager.setValidateAfterInactivity(2000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout((int) properties.connectTimeout().toMillis())
+            .setConnectionRequestTimeout((int) properties.acquireTimeout().toMillis())
+            .setSocketTimeout((int) properties.readTimeout().toMillis())
+            .build();
+
+        httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .evictExpiredConnections()
+            .evictIdleConnections(60, TimeUnit.SECONDS)
+            .build();
+
+        callPermits = new Semaphore(properties.maxConcurrentCalls(), true);
+        circuitBreaker = new CircuitBreaker(properties.breakerFailureThreshold(), properties.breakerOpenDuration());
+
+        Gauge.builder("llm.requests.in.flight", this, LlmClient::getInFlightCalls)
+            .description("Provider calls currently holding a permit")
+            .register(meterRegistry);
+        Gauge.builder("llm.connections.leased", connectionManager, manager -> manager.getTotalStats().getLeased())
+            .register(meterRegistry);
+        Gauge.builder("llm.connections.pending", connectionManager, manager -> manager.getTotalStats().getPending())
+            .register(meterRegistry);
+        Gauge.builder("llm.circuit.open", circuitBreaker, breaker -> breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+            .register(meterRegistry);
+    }
+
+    public String getModel() {
+        return properties.model();
+    }
+
+    // operation names the analytics use case and userId attributes token usage, both end up as metric tags
+    public String complete(String operation, String userId, String userMessage) throws LlmRequestException {
+        return guarded(operation, "complete", () -> execute(userId, userMessage));
+    }
+
+    public void stream(String operation, String userId, String userMessage, Consumer<String> onDelta) throws LlmRequestException {
+        guarded(operation, "stream", () -> {
+            executeStreaming(userId, userMessage, onDelta);
+            return null;
+        });
+    }
+
+    private <T> T guarded(String operation, String mode, LlmCall<T> call) throws LlmRequestException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+
+        try {
+            return permitted(call);
+        } catch (LlmRequestException e) {
+            outcome = e.getOutcome();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("llm.requests")
+                .description("Analytics provider calls, including time spent waiting for a permit")
+                .tag("operation", operation)
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        }
+    }
+
+    private <T> T permitted(LlmCall<T> call) throws LlmRequestException {
+        if (circuitBreaker.isOpen()) {
+            throw new LlmRequestException("Analytics provider unavailable", "circuit_open");
+        }
+
+        boolean acquired;
+        try {
+            acquired = callPermits.tryAcquire(properties.acquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            throw new LlmRequestException("Too many analytics requests", "rejected");
+        }
+
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                throw new LlmRequestException("Analytics provider unavailable", "circuit_open");
+            }
+
+            T result;
+            try {
+                result = call.run();
+            } catch (LlmRequestException e) {
+                circuitBreaker.recordFailure();
+                throw e;
+            }
+
+            circuitBreaker.recordSuccess();
+            return result;
+        } finally {
+            callPermits.release();
+        }
+    }
+
+    private String execute(String userId, String userMessage) throws LlmRequestException {
+        HttpPost post = buildPost(userMessage, false);
+
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+            if (response.getStatusLine().getStatusCode() >= 300) {
+                EntityUtils.consume(response.getEntity());
+                throw new LlmRequestException("Analytics provider error", "provider_error");
+            }
+
+            Completion completion = responseParser.parseCompletion(response.getEntity().getContent());
+            EntityUtils.consume(response.getEntity());
+            recordUsage(userId, completion.usage());
+            return completion.content();
+        } catch (LlmRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            throw transportFailure(e);
+        }
+    }
+
+    private void executeStreaming(String userId, String userMessage, Consumer<String> onDelta) throws LlmRequestException {
+        HttpPost post = buildPost(userMessage, true);
+        post.setHeader(HttpHeaders.ACCEPT, "text/event-stream");
+
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+            if (response.getStatusLine().getStatusCode() >= 300) {
+                EntityUtils.consume(response.getEntity());
+                throw new LlmRequestException("Analytics provider error", "provider_error");
+            }
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+
+                String data = line.substring("data:".length()).trim();
+                if (data.equals("[DONE]")) {
+                    break;
+                }
+
+                Completion chunk = responseParser.parseChunk(data);
+
+                // with include_usage the provider appends one last chunk that carries only the usage
+                recordUsage(userId, chunk.usage());
+
+                String delta = chunk.content();
+                if (!delta.isEmpty()) {
+                    onDelta.accept(delta);
+                }
+            }
+
+            EntityUtils.consume(response.getEntity());
+        } catch (LlmRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            throw transportFailure(e);
+        }
+    }
+
+    private static LlmRequestException transportFailure(Exception e) {
+        if (e instanceof ConnectionPoolTimeoutException) {
+            return new LlmRequestException("Too many analytics requests", "pool_timeout");
+        }
+        if (e instanceof ConnectTimeoutException || e instanceof ConnectException) {
+            return new LlmRequestException("Analytics provider unreachable", "connect_error");
+        }
+        if (e instanceof SocketTimeoutException) {
+            return new LlmRequestException("Analytics provider timed out", "timeout");
+        }
+        return new LlmRequestException("Analytics provider connection failed", "io_error");
+    }
+
+    // user ids stay out of the meter tags, one time series per user would grow without bound; per-user usage goes to the log
+    private void recordUsage(String userId, Usage usage) {
+        if (usage == null) {
+            return;
+        }
+
+        Counter.builder("llm.tokens")
+            .tag("kind", "prompt")
+            .register(meterRegistry)
+            .increment(usage.promptTokens());
+        Counter.builder("llm.tokens")
+            .tag("kind", "completion")
+            .register(meterRegistry)
+            .increment(usage.completionTokens());
+        log.info("LLM usage user={} prompt_tokens={} completion_tokens={}",
+            userId == null ? "unknown" : userId, usage.promptTokens(), usage.completionTokens());
+    }
+
+    private HttpPost buildPost(String userMessage, boolean stream) {
+        HttpPost post = new HttpPost(properties.url());
+        post.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + properties.apiKey());
+        post.setEntity(new ChatRequestEntity(jsonFactory, properties.model(), userMessage, stream));
+        return post;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public int getInFlightCalls() {
+        return properties.maxConcurrentCalls() - callPermits.availablePermits();
+    }
+
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        httpClient.close();
+    }
+
+    @FunctionalInterface
+    private interface LlmCall<T> {
+        T run() throws LlmRequestException;
+    }
+
+    // writes the request JSON straight to the connection, so the prompt is never copied into a body string;
+    // repeatable because it is generated anew on every write
+    private static class ChatRequestEntity extends AbstractHttpEntity {
+        private final JsonFactory jsonFactory;
+        private final String model;
+        private final String userMessage;
+        private final boolean stream;
+
+        ChatRequestEntity(JsonFactory jsonFactory, String model, String userMessage, boolean stream) {
+            this.jsonFactory = jsonFactory;
+            this.model = model;
+            this.userMessage = userMessage;
+            this.stream = stream;
+            setContentType(ContentType.APPLICATION_JSON.toString());
+            setChunked(true);
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+                generator.writeStartObject();
+                generator.writeStringField("model", model);
+                generator.writeArrayFieldStart("messages");
+                generator.writeStartObject();
+                generator.writeStringField("role", "user");
+                generator.writeStringField("content", userMessage);
+                generator.writeEndObject();
+                generator.writeEndArray();
+                generator.writeBooleanField("stream", stream);
+                if (stream) {
+                    generator.writeObjectFieldStart("stream_options");
+                    generator.writeBooleanField("include_usage", true);
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+            }
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            writeTo(body);
+            return new ByteArrayInputStream(body.toByteArray());
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+
+}
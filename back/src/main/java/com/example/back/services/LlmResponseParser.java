@@ -0,0 +1,143 @@
+package com.example.back.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+import com.example.back.exceptions.LlmRequestException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+// pulls choices[0].<message|delta>.content and usage out of a chat-completions payload token by token,
+// skipping every other field without building a tree; shared by the client and the benchmarks
+public class LlmResponseParser {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    // the answer is read straight from the connection and the reasoning block never becomes a string
+    public Completion parseCompletion(InputStream body) throws IOException, LlmRequestException {
+        VisibleContent content = new VisibleContent();
+        Usage usage;
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            usage = read(parser, "message", field -> field.getText(content));
+        } catch (JsonProcessingException e) {
+            throw new LlmRequestException("Analytics provider sent an unreadable answer", "parse_error");
+        }
+        return new Completion(content.finish(), usage);
+    }
+
+    // stream deltas are short and may split a tag, so they are returned as is for the caller's ThinkTagFilter
+    public Completion parseChunk(String data) throws LlmRequestException {
+        StringBuilder content = new StringBuilder();
+        try (JsonParser parser = jsonFactory.createParser(data)) {
+            Usage usage = read(parser, "delta", field -> content.append(field.getText()));
+            return new Completion(content.toString(), usage);
+        } catch (IOException e) {
+            throw new LlmRequestException("Analytics provider sent an unreadable answer", "parse_error");
+        }
+    }
+
+    private static Usage read(JsonParser parser, String choiceField, ContentReader contentReader) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object");
+        }
+
+        Usage usage = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if (field.equals("choices") && value == JsonToken.START_ARRAY) {
+                readChoices(parser, choiceField, contentReader);
+            } else if (field.equals("usage") && value == JsonToken.START_OBJECT) {
+                usage = readUsage(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return usage;
+    }
+
+    private static void readChoices(JsonParser parser, String choiceField, ContentReader contentReader) throws IOException {
+        boolean first = true;
+        JsonToken choice;
+        while ((choice = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (!first || choice != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            first = false;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if (field.equals(choiceField) && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String messageField = parser.currentName();
+                        if (parser.nextToken() == JsonToken.VALUE_STRING && messageField.equals("content")) {
+                            contentReader.read(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static Usage readUsage(JsonParser parser) throws IOException {
+        long promptTokens = 0;
+        long completionTokens = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if (value == JsonToken.VALUE_NUMBER_INT && field.equals("prompt_tokens")) {
+                promptTokens = parser.getLongValue();
+            } else if (value == JsonToken.VALUE_NUMBER_INT && field.equals("completion_tokens")) {
+                completionTokens = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new Usage(promptTokens, completionTokens);
+    }
+
+    @FunctionalInterface
+    private interface ContentReader {
+        void read(JsonParser parser) throws IOException;
+    }
+
+    // receives the content string in the parser's buffer segments and keeps only what is outside <think>
+    private static class VisibleContent extends Writer {
+        private final ThinkTagFilter thinkTagFilter = new ThinkTagFilter();
+        private final StringBuilder visible = new StringBuilder();
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            thinkTagFilter.feed(chars, offset, length, visible);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+
+        String finish() {
+            thinkTagFilter.finish(visible);
+            return visible.toString().trim();
+        }
+    }
+
+    // usage is null when the provider did not report it
+    public record Completion(String content, Usage usage) {}
+    public record Usage(long promptTokens, long completionTokens) {}
+
+}
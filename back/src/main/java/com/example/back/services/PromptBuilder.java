@@ -0,0 +1,176 @@
+package com.example.back.services;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.stereotype.Service;
+
+import com.example.back.configurations.AnalyticsPromptProperties;
+import com.example.back.configurations.AnalyticsProperties;
+import com.example.back.projections.EntryRow;
+
+import lombok.AllArgsConstructor;
+
+@Service
+@AllArgsConstructor
+public class PromptBuilder {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    // room left for the header and the summary line of older nights
+    private static final int RESERVED_CHARS = 400;
+
+    private AnalyticsProperties analyticsProperties;
+    private AnalyticsPromptProperties properties;
+
+    public String buildEntriesPrompt(String instructions, List<EntryRow> entries) {
+        ZoneId zone = ZoneId.of(analyticsProperties.zone());
+
+        List<EntryRow> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(EntryRow::start).reversed());
+
+        int budgetChars = properties.tokenBudget() * properties.charsPerToken() - instructions.length() - RESERVED_CHARS;
+        long windowStart = sorted.isEmpty() ? 0 : sorted.get(0).start().getTime() - properties.window().toMillis();
+
+        // newest first: take nights while they are recent enough and still fit the budget. Offsets are counted
+        // from the oldest listed night, which is only known at the end, so every row is charged the widest offset
+        // it could get: the distance from the night being considered to the newest one
+        int included = 0;
+        int usedChars = 0;
+        int rowsChars = 0;
+        StringBuilder row = new StringBuilder();
+        for (EntryRow entryRow : sorted) {
+            if (entryRow.start().getTime() < windowStart) {
+                break;
+            }
+
+            row.setLength(0);
+            appendRowTail(row, entryRow);
+            long widestOffset = (sorted.get(0).start().getTime() - entryRow.start().getTime()) / 60000;
+            int totalChars = rowsChars + row.length() + (included + 1) * Long.toString(widestOffset).length();
+            if (included > 0 && totalChars > budgetChars) {
+                break;
+            }
+
+            rowsChars += row.length();
+            usedChars = totalChars;
+            included++;
+        }
+
+        StringBuilder prompt = new StringBuilder(instructions.length() + usedChars + RESERVED_CHARS);
+        prompt.append(instructions).append("\n\n");
+
+        if (included < sorted.size()) {
+            appendSummary(prompt, sorted.subList(included, sorted.size()), zone);
+        }
+
+        if (included == 0) {
+            prompt.append("No nights recorded.\n");
+            return prompt.toString();
+        }
+
+        long anchor = sorted.get(included - 1).start().getTime();
+        prompt.append("zone=").append(zone.getId())
+            .append(" anchor=").append(DATE_TIME.format(Instant.ofEpochMilli(anchor).atZone(zone)))
+            .append('\n')
+            .append("start_min|duration_min|rate|notes\n");
+
+        for (int i = included - 1; i >= 0; i--) {
+            appendRow(prompt, sorted.get(i), anchor);
+        }
+
+        return prompt.toString();
+    }
+
+    // whether every row can be listed next to these instructions; each is charged the widest offset of the set,
+    // which is never less than buildEntriesPrompt charges it, so a set that fits here is listed there in full
+    public boolean fitsBudget(String instructions, List<EntryRow> entries) {
+        int budgetChars = properties.tokenBudget() * properties.charsPerToken() - instructions.length() - RESERVED_CHARS;
+        if (entries.isEmpty()) {
+            return budgetChars >= 0;
+        }
+
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        StringBuilder rows = new StringBuilder();
+        for (EntryRow entryRow : entries) {
+            first = Math.min(first, entryRow.start().getTime());
+            last = Math.max(last, entryRow.start().getTime());
+            appendRowTail(rows, entryRow);
+        }
+
+        return rows.length() + (long) entries.size() * Long.toString((last - first) / 60000).length() <= budgetChars;
+    }
+
+    private void appendRow(StringBuilder target, EntryRow entryRow, long anchor) {
+        target.append((entryRow.start().getTime() - anchor) / 60000);
+        appendRowTail(target, entryRow);
+    }
+
+    // everything after start_min, which does not depend on the anchor
+    private void appendRowTail(StringBuilder target, EntryRow entryRow) {
+        target.append('|')
+            .append((entryRow.end().getTime() - entryRow.start().getTime()) / 60000).append('|')
+            .append(entryRow.rate()).append('|');
+        appendNotes(target, entryRow.notes());
+        target.append('\n');
+    }
+
+    private void appendNotes(StringBuilder target, String notes) {
+        if (notes == null) {
+            return;
+        }
+
+        int length = Math.min(notes.length(), properties.maxNoteLength());
+        for (int i = 0; i < length; i++) {
+            char c = notes.charAt(i);
+            target.append(c == '|' || c == '\n' || c == '\r' ? ' ' : c);
+        }
+        if (length < notes.length()) {
+            target.append('…');
+        }
+    }
+
+    private void appendSummary(StringBuilder target, List<EntryRow> older, ZoneId zone) {
+        long durationSum = 0;
+        long rateSum = 0;
+        double bedtimeSin = 0;
+        double bedtimeCos = 0;
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+
+        for (EntryRow entryRow : older) {
+            long start = entryRow.start().getTime();
+            durationSum += entryRow.end().getTime() - start;
+            rateSum += entryRow.rate();
+            first = Math.min(first, start);
+            last = Math.max(last, start);
+
+            ZonedDateTime bedtime = Instant.ofEpochMilli(start).atZone(zone);
+            double angle = 2 * Math.PI * (bedtime.getHour() * 60 + bedtime.getMinute()) / 1440.0;
+            bedtimeSin += Math.sin(angle);
+            bedtimeCos += Math.cos(angle);
+        }
+
+        int count = older.size();
+        long avgMinutes = durationSum / count / 60000;
+        long bedtimeMinute = Math.round(Math.toDegrees(Math.atan2(bedtimeSin, bedtimeCos)) / 360.0 * 1440);
+        bedtimeMinute = Math.floorMod(bedtimeMinute, 1440);
+
+        target.append("Earlier history, ").append(count).append(" nights from ")
+            .append(DATE.format(Instant.ofEpochMilli(first).atZone(zone))).append(" to ")
+            .append(DATE.format(Instant.ofEpochMilli(last).atZone(zone))).append(": ")
+            .append("average duration ").append(avgMinutes / 60).append("h ").append(avgMinutes % 60).append("m, ")
+            .append("average rate ").append(String.format(Locale.ROOT, "%.1f", (double) rateSum / count)).append(", ")
+            .append("typical bedtime ").append(String.format(Locale.ROOT, "%02d:%02d", bedtimeMinute / 60, bedtimeMinute % 60))
+            .append("\n\n");
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.example.back.services;
+
+import java.util.List;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.example.back.repositories.EntryRepository;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// backfill: start the backend once with --rebuild-rollups after enabling rollups on existing data
+@Slf4j
+@Component
+@AllArgsConstructor
+public class SleepRollupRebuildRunner implements ApplicationRunner {
+
+    public static final String OPTION = "rebuild-rollups";
+
+    private EntryRepository entryRepository;
+    private SleepRollupService sleepRollupService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+
+        List<String> userIds = entryRepository.findUserIds();
+        log.info("Rebuilding sleep rollups for {} users", userIds.size());
+
+        // one transaction per user keeps each rebuild short
+        for (String userId : userIds) {
+            sleepRollupService.rebuild(userId);
+        }
+
+        log.info("Sleep rollups rebuilt");
+    }
+
+}
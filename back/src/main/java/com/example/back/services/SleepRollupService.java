@@ -0,0 +1,183 @@
+package com.example.back.services;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.back.configurations.AnalyticsProperties;
+import com.example.back.entities.SleepRollupEntity;
+import com.example.back.entities.SleepRollupEntity.Period;
+import com.example.back.projections.EntryPoint;
+import com.example.back.repositories.EntryRepository;
+import com.example.back.repositories.SleepRollupRepository;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+
+@Service
+@AllArgsConstructor
+public class SleepRollupService {
+
+    private static final long MINUTE = 60_000L;
+
+    private EntryRepository entryRepository;
+    private SleepRollupRepository sleepRollupRepository;
+    private AnalyticsProperties analyticsProperties;
+
+    // called inside the entry write's transaction, after the user row is locked by the version bump,
+    // so concurrent writers of one user recompute their weeks one after another
+    public void entriesChanged(String userId, Collection<Date> starts) {
+        if (starts.isEmpty()) {
+            return;
+        }
+
+        ZoneId zone = zone();
+        LocalDate first = null;
+        LocalDate last = null;
+        for (Date start : starts) {
+            LocalDate night = nightOf(start.getTime(), zone);
+            first = first == null || night.isBefore(first) ? night : first;
+            last = last == null || night.isAfter(last) ? night : last;
+        }
+
+        recompute(userId, first, last, zone);
+    }
+
+    public void rangeChanged(String userId, Date from, Date to) {
+        ZoneId zone = zone();
+        recompute(userId, nightOf(from.getTime(), zone), nightOf(to.getTime() - 1, zone), zone);
+    }
+
+    @Transactional
+    public void rebuild(String userId) {
+        sleepRollupRepository.deleteByUser(userId);
+
+        Date first = entryRepository.findFirstStart(userId);
+        Date last = entryRepository.findLastStart(userId);
+        if (first != null) {
+            ZoneId zone = zone();
+            recompute(userId, nightOf(first.getTime(), zone), nightOf(last.getTime(), zone), zone);
+        }
+    }
+
+    public List<TrendPoint> getTrends(String userId, Period period, LocalDate from, LocalDate to) {
+        LocalDate rangeStart = period == Period.WEEK ? from.with(DayOfWeek.MONDAY) : from;
+        List<SleepRollupEntity> rollups = sleepRollupRepository.findByUserIdAndPeriodAndPeriodStartBetweenOrderByPeriodStart(userId, period, rangeStart, to);
+
+        List<TrendPoint> trend = new ArrayList<>(rollups.size());
+        for (SleepRollupEntity rollup : rollups) {
+            double nights = rollup.getNights();
+            double bedtime = rollup.getBedtimeSum() / nights;
+            double wake = rollup.getWakeSum() / nights;
+
+            trend.add(new TrendPoint(
+                rollup.getPeriodStart(),
+                rollup.getNights(),
+                rollup.getTotalMinutes() / nights,
+                rollup.getRateSum() / nights,
+                rollup.getRateMin(),
+                rollup.getRateMax(),
+                minuteOfDay(bedtime),
+                Math.sqrt(Math.max(0, rollup.getBedtimeSquares() / nights - bedtime * bedtime)),
+                minuteOfDay(wake),
+                Math.sqrt(Math.max(0, rollup.getWakeSquares() / nights - wake * wake))
+            ));
+        }
+        return trend;
+    }
+
+    // whole ISO weeks are recomputed, so the week rows stay consistent with the day rows inside them
+    private void recompute(String userId, LocalDate firstNight, LocalDate lastNight, ZoneId zone) {
+        LocalDate from = firstNight.with(DayOfWeek.MONDAY);
+        LocalDate to = lastNight.with(DayOfWeek.SUNDAY);
+
+        sleepRollupRepository.deleteRange(userId, from, to);
+
+        List<EntryPoint> points = entryRepository.findPoints(userId, new Date(noonOf(from, zone)), new Date(noonOf(to.plusDays(1), zone)));
+
+        Map<LocalDate, SleepRollupEntity> days = new LinkedHashMap<>();
+        Map<LocalDate, SleepRollupEntity> weeks = new LinkedHashMap<>();
+        for (EntryPoint point : points) {
+            long start = point.start().getTime();
+            LocalDate night = nightOf(start, zone);
+            long noon = noonOf(night, zone);
+
+            long duration = (point.end().getTime() - start) / MINUTE;
+            long bedtime = (start - noon) / MINUTE;
+            long wake = (point.end().getTime() - noon) / MINUTE;
+
+            add(days.computeIfAbsent(night, day -> empty(userId, Period.DAY, day)), duration, point.rate(), bedtime, wake);
+            add(weeks.computeIfAbsent(night.with(DayOfWeek.MONDAY), week -> empty(userId, Period.WEEK, week)), duration, point.rate(), bedtime, wake);
+        }
+
+        sleepRollupRepository.insertBatch(days.values());
+        sleepRollupRepository.insertBatch(weeks.values());
+    }
+
+    private static SleepRollupEntity empty(String userId, Period period, LocalDate periodStart) {
+        return SleepRollupEntity.builder()
+            .userId(userId)
+            .period(period)
+            .periodStart(periodStart)
+            .rateMin(Integer.MAX_VALUE)
+            .rateMax(Integer.MIN_VALUE)
+            .build();
+    }
+
+    private static void add(SleepRollupEntity rollup, long duration, int rate, long bedtime, long wake) {
+        rollup.setNights(rollup.getNights() + 1);
+        rollup.setTotalMinutes(rollup.getTotalMinutes() + duration);
+        rollup.setRateSum(rollup.getRateSum() + rate);
+        rollup.setRateMin(Math.min(rollup.getRateMin(), rate));
+        rollup.setRateMax(Math.max(rollup.getRateMax(), rate));
+        rollup.setBedtimeSum(rollup.getBedtimeSum() + bedtime);
+        rollup.setBedtimeSquares(rollup.getBedtimeSquares() + bedtime * bedtime);
+        rollup.setWakeSum(rollup.getWakeSum() + wake);
+        rollup.setWakeSquares(rollup.getWakeSquares() + wake * wake);
+    }
+
+    // a night belongs to the day on which it started, counting anything before noon as the previous day
+    private static LocalDate nightOf(long millis, ZoneId zone) {
+        ZonedDateTime local = Instant.ofEpochMilli(millis).atZone(zone);
+        LocalDate date = local.toLocalDate();
+        return local.toLocalTime().isBefore(LocalTime.NOON) ? date.minusDays(1) : date;
+    }
+
+    private static long noonOf(LocalDate night, ZoneId zone) {
+        return night.atTime(LocalTime.NOON).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private static int minuteOfDay(double minutesAfterNoon) {
+        return (int) Math.floorMod(Math.round(minutesAfterNoon) + 720, 1440L);
+    }
+
+    private ZoneId zone() {
+        return ZoneId.of(analyticsProperties.zone());
+    }
+
+    public record TrendPoint(
+        @JsonFormat(shape = JsonFormat.Shape.STRING) LocalDate periodStart,
+        int nights,
+        double averageDurationMinutes,
+        double averageRate,
+        int minRate,
+        int maxRate,
+        int meanBedtimeMinute,
+        double bedtimeDeviationMinutes,
+        int meanWakeTimeMinute,
+        double wakeTimeDeviationMinutes
+    ) {};
+
+}
@@ -0,0 +1,163 @@
+package com.example.back.services;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.example.back.entities.EntryEntity;
+
+@Service
+public class SleepStatisticsService {
+
+    private static final long MINUTE = 60_000L;
+    private static final long DAY = 86_400_000L;
+    private static final long HALF_DAY = DAY / 2;
+    private static final long WEEK = 7 * DAY;
+    private static final double OUTLIER_SIGMAS = 2.0;
+
+    public SleepStatistics compute(List<EntryEntity> entries, ZoneId zone) {
+        int count = entries.size();
+        if (count == 0) {
+            return SleepStatistics.EMPTY;
+        }
+
+        long[] starts = new long[count];
+        int[] durations = new int[count];
+        int[] rates = new int[count];
+        for (int i = 0; i < count; i++) {
+            EntryEntity entryEntity = entries.get(i);
+            starts[i] = entryEntity.getStart().getTime();
+            durations[i] = (int) ((entryEntity.getEnd().getTime() - starts[i]) / MINUTE);
+            rates[i] = entryEntity.getRate();
+        }
+
+        ZoneRules rules = zone.getRules();
+        boolean fixedOffset = rules.isFixedOffset();
+        long offset = fixedOffset ? rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L : 0;
+
+        long firstStart = Long.MAX_VALUE;
+        for (long start : starts) {
+            firstStart = Math.min(firstStart, start);
+        }
+
+        double durationSum = 0, durationSquares = 0, rateSum = 0;
+        double bedSin = 0, bedCos = 0, wakeSin = 0, wakeCos = 0;
+        double trendX = 0, trendXX = 0, trendXY = 0;
+        double weekdayDuration = 0, weekdayRate = 0, weekendDuration = 0, weekendRate = 0;
+        int weekendCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            long start = starts[i];
+            long end = start + durations[i] * MINUTE;
+            long startOffset = fixedOffset ? offset : rules.getOffset(Instant.ofEpochMilli(start)).getTotalSeconds() * 1000L;
+            long endOffset = fixedOffset ? offset : rules.getOffset(Instant.ofEpochMilli(end)).getTotalSeconds() * 1000L;
+            long localStart = start + startOffset;
+            long localEnd = end + endOffset;
+
+            double duration = durations[i];
+            durationSum += duration;
+            durationSquares += duration * duration;
+            rateSum += rates[i];
+
+            double bedAngle = angle(localStart);
+            bedSin += Math.sin(bedAngle);
+            bedCos += Math.cos(bedAngle);
+            double wakeAngle = angle(localEnd);
+            wakeSin += Math.sin(wakeAngle);
+            wakeCos += Math.cos(wakeAngle);
+
+            double weeks = (double) (start - firstStart) / WEEK;
+            trendX += weeks;
+            trendXX += weeks * weeks;
+            trendXY += weeks * rates[i];
+
+            // a night belongs to the day it started, anything before noon counting as the previous day (as in the rollups);
+            // epoch day 0 is a Thursday, so +3 makes Monday 0; Friday and Saturday nights count as weekend
+            int dayOfWeek = Math.floorMod(Math.floorDiv(localStart - HALF_DAY, DAY) + 3, 7);
+            if (dayOfWeek == 4 || dayOfWeek == 5) {
+                weekendDuration += duration;
+                weekendRate += rates[i];
+                weekendCount++;
+            } else {
+                weekdayDuration += duration;
+                weekdayRate += rates[i];
+            }
+        }
+
+        double averageDuration = durationSum / count;
+        double durationDeviation = Math.sqrt(Math.max(0, durationSquares / count - averageDuration * averageDuration));
+        double averageRate = rateSum / count;
+
+        double trendDenominator = count * trendXX - trendX * trendX;
+        double rateTrend = trendDenominator == 0 ? 0 : (count * trendXY - trendX * rateSum) / trendDenominator;
+
+        int[] sortedDurations = durations.clone();
+        Arrays.sort(sortedDurations);
+        double medianDuration = count % 2 == 1
+            ? sortedDurations[count / 2]
+            : (sortedDurations[count / 2 - 1] + sortedDurations[count / 2]) / 2.0;
+
+        List<String> outliers = new ArrayList<>();
+        if (durationDeviation > 0) {
+            for (int i = 0; i < count; i++) {
+                if (Math.abs(durations[i] - averageDuration) > OUTLIER_SIGMAS * durationDeviation) {
+                    outliers.add(entries.get(i).getId());
+                }
+            }
+        }
+
+        int weekdayCount = count - weekendCount;
+
+        return new SleepStatistics(
+            count,
+            averageDuration,
+            medianDuration,
+            durationDeviation,
+            averageRate,
+            rateTrend,
+            Math.hypot(bedSin, bedCos) / count,
+            meanMinuteOfDay(bedSin, bedCos),
+            Math.hypot(wakeSin, wakeCos) / count,
+            meanMinuteOfDay(wakeSin, wakeCos),
+            new DayGroup(weekdayCount, weekdayCount == 0 ? 0 : weekdayDuration / weekdayCount, weekdayCount == 0 ? 0 : weekdayRate / weekdayCount),
+            new DayGroup(weekendCount, weekendCount == 0 ? 0 : weekendDuration / weekendCount, weekendCount == 0 ? 0 : weekendRate / weekendCount),
+            outliers
+        );
+    }
+
+    private static double angle(long localMillis) {
+        return 2 * Math.PI * Math.floorMod(localMillis, DAY) / DAY;
+    }
+
+    private static int meanMinuteOfDay(double sin, double cos) {
+        double minutes = Math.atan2(sin, cos) / (2 * Math.PI) * 1440;
+        return (int) Math.floorMod(Math.round(minutes), 1440L);
+    }
+
+    public record DayGroup(int count, double averageDurationMinutes, double averageRate) {};
+
+    // regularity values are mean resultant lengths of the times of day: 1 means always at the same minute, 0 means no pattern
+    public record SleepStatistics(
+        int count,
+        double averageDurationMinutes,
+        double medianDurationMinutes,
+        double durationDeviationMinutes,
+        double averageRate,
+        double rateTrendPerWeek,
+        double bedtimeRegularity,
+        int meanBedtimeMinute,
+        double wakeTimeRegularity,
+        int meanWakeTimeMinute,
+        DayGroup weekdays,
+        DayGroup weekends,
+        List<String> outlierEntryIds
+    ) {
+        public static final SleepStatistics EMPTY = new SleepStatistics(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, new DayGroup(0, 0, 0), new DayGroup(0, 0, 0), List.of());
+    };
+
+}
@@ -0,0 +1,85 @@
+package com.example.back.services;
+
+public class ThinkTagFilter {
+
+    private static final String OPEN_TAG = "<think>";
+    private static final String CLOSE_TAG = "</think>";
+
+    private final StringBuilder buffer = new StringBuilder();
+    private boolean inside = false;
+    private boolean started = false;
+
+    public String feed(String chunk) {
+        buffer.append(chunk);
+        StringBuilder visible = new StringBuilder();
+        drain(visible);
+        return emit(visible);
+    }
+
+    // appends straight to the caller's answer without a string per chunk; leading whitespace is left to the caller
+    public void feed(char[] chunk, int offset, int length, StringBuilder visible) {
+        buffer.append(chunk, offset, length);
+        drain(visible);
+    }
+
+    public String finish() {
+        StringBuilder visible = new StringBuilder();
+        finish(visible);
+        return emit(visible);
+    }
+
+    public void finish(StringBuilder visible) {
+        if (!inside) {
+            visible.append(buffer);
+        }
+        buffer.setLength(0);
+    }
+
+    private void drain(StringBuilder visible) {
+        while (true) {
+            if (inside) {
+                int end = buffer.indexOf(CLOSE_TAG);
+                if (end == -1) {
+                    // reasoning text is dropped, only a possible start of the closing tag is kept
+                    buffer.delete(0, buffer.length() - partialTagLength(CLOSE_TAG));
+                    break;
+                }
+                buffer.delete(0, end + CLOSE_TAG.length());
+                inside = false;
+            } else {
+                int start = buffer.indexOf(OPEN_TAG);
+                if (start == -1) {
+                    int safe = buffer.length() - partialTagLength(OPEN_TAG);
+                    visible.append(buffer, 0, safe);
+                    buffer.delete(0, safe);
+                    break;
+                }
+                visible.append(buffer, 0, start);
+                buffer.delete(0, start + OPEN_TAG.length());
+                inside = true;
+            }
+        }
+    }
+
+    private String emit(StringBuilder visible) {
+        if (!started) {
+            int first = 0;
+            while (first < visible.length() && Character.isWhitespace(visible.charAt(first))) {
+                first++;
+            }
+            visible.delete(0, first);
+            started = visible.length() > 0;
+        }
+        return visible.toString();
+    }
+
+    private int partialTagLength(String tag) {
+        for (int length = Math.min(tag.length() - 1, buffer.length()); length > 0; length--) {
+            if (buffer.substring(buffer.length() - length).equals(tag.substring(0, length))) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+}
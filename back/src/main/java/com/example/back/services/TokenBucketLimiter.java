@@ -0,0 +1,90 @@
+package com.example.back.services;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// each bucket is kept as the time at which it will be full again, so taking a token is one addition
+public class TokenBucketLimiter {
+
+    private final long refillNanos;
+    private final long burstNanos;
+    private final long idleNanos;
+    private final LongSupplier clock;
+    private final Stripe[] stripes;
+
+    public TokenBucketLimiter(int capacity, Duration refill, int stripes, Duration idleTimeout) {
+        this(capacity, refill, stripes, idleTimeout, System::nanoTime);
+    }
+
+    TokenBucketLimiter(int capacity, Duration refill, int stripes, Duration idleTimeout, LongSupplier clock) {
+        this.refillNanos = refill.toNanos();
+        this.burstNanos = (capacity - 1) * refillNanos;
+        this.idleNanos = idleTimeout.toNanos();
+        this.clock = clock;
+
+        // a power of two, so the stripe is picked with a mask
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Stripe[count];
+        long now = clock.getAsLong();
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(now);
+        }
+    }
+
+    // returns 0 when a token was taken, otherwise the nanoseconds until the next one
+    public long tryAcquire(String key) {
+        long now = clock.getAsLong();
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+
+        synchronized (stripe) {
+            if (now - stripe.lastSweep > idleNanos) {
+                stripe.sweep(now);
+            }
+
+            Long fullAt = stripe.fullAt.get(key);
+            long start = fullAt == null || fullAt < now ? now : fullAt;
+            long wait = start - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+
+            stripe.fullAt.put(key, start + refillNanos);
+            return 0;
+        }
+    }
+
+    public int trackedKeys() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.fullAt.size();
+            }
+        }
+        return count;
+    }
+
+    private static class Stripe {
+        private final Map<String, Long> fullAt = new HashMap<>();
+        private long lastSweep;
+
+        private Stripe(long now) {
+            this.lastSweep = now;
+        }
+
+        // a bucket that has been full for a while is indistinguishable from a new one, so it can go
+        private void sweep(long now) {
+            Iterator<Long> iterator = fullAt.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next() <= now) {
+                    iterator.remove();
+                }
+            }
+            lastSweep = now;
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.example.back.services;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -9,12 +10,13 @@ import org.springframework.stereotype.Service;
 import com.example.back.entities.UserEntity;
 import com.example.back.exceptions.UsernameAlreadyExistsException;
 import com.example.back.repositories.UserRepository;
+import com.example.back.security.UserPrincipal;
 
 import lombok.AllArgsConstructor;
 
 @Service
 @AllArgsConstructor
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private UserRepository userRepository;
     private PasswordEncoder passwordEncoder;
@@ -22,7 +24,15 @@ public class UserService implements UserDetailsService {
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         UserEntity userEntity = userRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("Username not found"));
-        return userEntity;
+        return UserPrincipal.of(userEntity);
+    }
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserEntity userEntity = userRepository.findByUsername(user.getUsername()).orElseThrow(() -> new UsernameNotFoundException("Username not found"));
+        userEntity.setPassword(newPassword);
+        userRepository.save(userEntity);
+        return UserPrincipal.of(userEntity);
     }
 
     public UserEntity getUserByUsername(String username) throws UsernameNotFoundException {
@@ -0,0 +1,19 @@
+CREATE TABLE "user" (
+    id VARCHAR(255) NOT NULL PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255),
+    role VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_user_username UNIQUE (username)
+);
+
+CREATE TABLE "entry" (
+    id VARCHAR(255) NOT NULL PRIMARY KEY,
+    user_id VARCHAR(255) NOT NULL,
+    start_time TIMESTAMP(6) NOT NULL,
+    end_time TIMESTAMP(6) NOT NULL,
+    rate INTEGER NOT NULL,
+    notes VARCHAR(255) NOT NULL
+);
+
+-- serves both per-user listings and the keyset pages ordered by start_time
+CREATE INDEX idx_entry_user_start ON "entry" (user_id, start_time);
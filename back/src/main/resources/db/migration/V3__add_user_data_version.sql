@@ -0,0 +1,2 @@
+-- bumped with every entry write, conditional reads derive their ETags from it
+ALTER TABLE "user" ADD COLUMN data_version BIGINT DEFAULT 0 NOT NULL;
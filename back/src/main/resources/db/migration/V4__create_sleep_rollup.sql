@@ -0,0 +1,16 @@
+-- per-user daily and ISO-week aggregates, kept current by EntryService on every write
+CREATE TABLE sleep_rollup (
+    user_id VARCHAR(255) NOT NULL,
+    period VARCHAR(8) NOT NULL,
+    period_start DATE NOT NULL,
+    nights INTEGER NOT NULL,
+    total_minutes BIGINT NOT NULL,
+    rate_sum INTEGER NOT NULL,
+    rate_min INTEGER NOT NULL,
+    rate_max INTEGER NOT NULL,
+    bedtime_sum BIGINT NOT NULL,
+    bedtime_squares BIGINT NOT NULL,
+    wake_sum BIGINT NOT NULL,
+    wake_squares BIGINT NOT NULL,
+    PRIMARY KEY (user_id, period, period_start)
+);
@@ -0,0 +1,8 @@
+-- precomputed all-entries analyses, one per user, tagged with the data version they were built from
+CREATE TABLE analytics_report (
+    user_id VARCHAR(255) NOT NULL PRIMARY KEY,
+    data_version BIGINT NOT NULL,
+    model VARCHAR(255) NOT NULL,
+    report CLOB NOT NULL,
+    generated_at TIMESTAMP(6) NOT NULL
+);
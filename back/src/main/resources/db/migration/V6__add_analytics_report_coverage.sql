@@ -0,0 +1,6 @@
+-- what a report covers, so follow-up reports only send the nights added since; existing rows get a full refresh
+ALTER TABLE analytics_report ADD COLUMN entry_count BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE analytics_report ADD COLUMN covered_until TIMESTAMP(6);
+ALTER TABLE analytics_report ADD COLUMN covered_entry_id VARCHAR(255);
+ALTER TABLE analytics_report ADD COLUMN incremental_runs INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE analytics_report ADD COLUMN full_at TIMESTAMP(6);
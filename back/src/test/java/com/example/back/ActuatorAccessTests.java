@@ -0,0 +1,84 @@
+package com.example.back;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+class ActuatorAccessTests {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private HttpResponse<String> send(HttpRequest.Builder request, String cookie) throws Exception {
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(int port, String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+    }
+
+    private HttpResponse<String> post(int port, String path, String json) throws Exception {
+        return send(request(port, path).header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(json)), null);
+    }
+
+    private String signIn(int port) throws Exception {
+        String credentials = "{\"username\":\"operator\",\"password\":\"secret\"}";
+        post(port, "/auth/signup", credentials);
+        return post(port, "/auth/signin", credentials).headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+    }
+
+    @Test
+    void actuatorIsClosedOnTheApplicationPort() throws Exception {
+        try (ConfigurableApplicationContext node = new SpringApplicationBuilder(BackApplication.class)
+                 .run(
+                     "--server.port=0",
+                     "--spring.datasource.url=jdbc:h2:mem:actuator-app-port;DB_CLOSE_DELAY=-1",
+                     "--security.password.bcrypt-strength=4"
+                 )) {
+            int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+            String cookie = signIn(port);
+
+            // any visitor can sign up, so a session must not open the metrics either
+            assertEquals(403, send(request(port, "/actuator/health").GET(), null).statusCode());
+            assertEquals(403, send(request(port, "/actuator/metrics").GET(), null).statusCode());
+            assertEquals(403, send(request(port, "/actuator/metrics").GET(), cookie).statusCode());
+            assertEquals(403, send(request(port, "/actuator/prometheus").GET(), cookie).statusCode());
+        }
+    }
+
+    @Test
+    void managementPortServesTheScraperWithoutASession() throws Exception {
+        try (ConfigurableApplicationContext node = new SpringApplicationBuilder(BackApplication.class)
+                 .run(
+                     "--server.port=0",
+                     "--management.server.port=0",
+                     "--spring.datasource.url=jdbc:h2:mem:actuator-management-port;DB_CLOSE_DELAY=-1",
+                     "--security.password.bcrypt-strength=4"
+                 )) {
+            int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+            int managementPort = node.getEnvironment().getRequiredProperty("local.management.port", Integer.class);
+
+            assertEquals(200, send(request(managementPort, "/actuator/health").GET(), null).statusCode());
+            HttpResponse<String> scrape = send(request(managementPort, "/actuator/prometheus").GET(), null);
+            assertEquals(200, scrape.statusCode());
+            assertTrue(scrape.body().contains("jvm_memory_used_bytes"));
+            assertTrue(scrape.headers().firstValue("Set-Cookie").isEmpty());
+
+            // the application port does not serve the actuator at all, and the management port serves nothing else
+            assertEquals(404, send(request(port, "/actuator/prometheus").GET(), signIn(port)).statusCode());
+            assertEquals(404, send(request(managementPort, "/entries").GET(), null).statusCode());
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.example.back;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.back.load.StubLlmServer;
+
+class AnalyticsConnectionPoolTests {
+
+    private static final int POOL_SIZE = 2;
+    private static final int ANALYSES = 6;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private String baseUrl;
+
+    private HttpRequest post(String path, String json, String cookie) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        return request.build();
+    }
+
+    private HttpRequest get(String path, String cookie) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Cookie", cookie).GET().build();
+    }
+
+    private String signInWithOneEntry() throws Exception {
+        String credentials = "{\"username\":\"" + UUID.randomUUID() + "\",\"password\":\"secret\"}";
+        httpClient.send(post("/auth/signup", credentials, null), HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> signin = httpClient.send(post("/auth/signin", credentials, null), HttpResponse.BodyHandlers.ofString());
+        String cookie = signin.headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+
+        String entry = "{\"start\":1704146400000,\"end\":1704175200000,\"rate\":7,\"notes\":\"\"}";
+        httpClient.send(post("/entry/add", entry, cookie), HttpResponse.BodyHandlers.ofString());
+        return cookie;
+    }
+
+    // more analyses are waiting on the provider than the pool has connections; with a connection held per request
+    // the entry reads would time out after a second, with the snapshot released they are not slowed down at all
+    @Test
+    void entryReadsStayFastWhileAnalysesWaitOnTheProvider() throws Exception {
+        try (StubLlmServer llm = new StubLlmServer(Duration.ofSeconds(4), Duration.ZERO, 5, 10);
+             // arguments, not default properties, which application.properties would override
+             ConfigurableApplicationContext app = new SpringApplicationBuilder(BackApplication.class)
+                .run(
+                    "--server.port=0",
+                    "--spring.datasource.url=jdbc:h2:mem:pool-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                    "--spring.datasource.hikari.connection-timeout=1000",
+                    "--spring.jpa.show-sql=false",
+                    "--security.password.bcrypt-strength=4",
+                    "--llm.url=" + llm.url(),
+                    "--llm.api-key=pool-test",
+                    "--llm.max-concurrent-calls=" + ANALYSES
+                )) {
+
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+
+            List<String> analysts = new ArrayList<>();
+            for (int i = 0; i < ANALYSES; i++) {
+                analysts.add(signInWithOneEntry());
+            }
+            String reader = signInWithOneEntry();
+            httpClient.send(get("/entry/entries", reader), HttpResponse.BodyHandlers.ofString());
+
+            List<CompletableFuture<HttpResponse<String>>> analyses = new ArrayList<>();
+            for (String cookie : analysts) {
+                analyses.add(httpClient.sendAsync(get("/analytics/forall", cookie), HttpResponse.BodyHandlers.ofString()));
+            }
+
+            long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+            while (llm.getRequests() < ANALYSES && System.nanoTime() < waitUntil) {
+                Thread.sleep(20);
+            }
+            assertEquals(ANALYSES, llm.getRequests(), "not every analysis reached the provider");
+
+            for (int i = 0; i < 20; i++) {
+                long start = System.nanoTime();
+                HttpResponse<String> entries = httpClient.send(get("/entry/entries", reader), HttpResponse.BodyHandlers.ofString());
+                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                assertEquals(200, entries.statusCode(), entries.body());
+                assertTrue(millis < 500, "entry read took " + millis + " ms");
+            }
+
+            for (CompletableFuture<HttpResponse<String>> analysis : analyses) {
+                HttpResponse<String> response = analysis.get(30, TimeUnit.SECONDS);
+                assertEquals(200, response.statusCode());
+                assertTrue(response.body().contains("\"data\":\"сон"), response.body());
+            }
+        }
+    }
+
+}
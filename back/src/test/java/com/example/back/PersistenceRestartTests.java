@@ -0,0 +1,83 @@
+package com.example.back;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.back.entities.EntryEntity;
+import com.example.back.entities.UserEntity;
+import com.example.back.repositories.EntryRepository;
+import com.example.back.repositories.UserRepository;
+
+class PersistenceRestartTests {
+
+    @TempDir
+    Path dataDir;
+
+    // passed as arguments: default properties would lose to application-prod.properties and open /data/sleepdb
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(BackApplication.class)
+            .profiles("prod")
+            .run(
+                "--spring.datasource.url=jdbc:h2:file:" + dataDir.resolve("sleepdb").toAbsolutePath(),
+                "--server.port=0",
+                "--management.server.port=0"
+            );
+    }
+
+    @Test
+    void dataSurvivesRestart() {
+        String userId;
+        try (ConfigurableApplicationContext context = start()) {
+            UserEntity userEntity = context.getBean(UserRepository.class).save(
+                UserEntity.builder().username("sleeper").password("hash").role("USER").build());
+            userId = userEntity.getId();
+
+            EntryEntity entryEntity = new EntryEntity();
+            entryEntity.setUserId(userId);
+            entryEntity.setStart(new Date(1_700_000_000_000L));
+            entryEntity.setEnd(new Date(1_700_028_800_000L));
+            entryEntity.setRate(8);
+            entryEntity.setNotes("restful");
+            context.getBean(EntryRepository.class).save(entryEntity);
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            assertTrue(context.getBean(UserRepository.class).findByUsername("sleeper").isPresent());
+
+            List<EntryEntity> entries = context.getBean(EntryRepository.class).getByUserId(userId);
+            assertEquals(1, entries.size());
+            assertEquals("restful", entries.get(0).getNotes());
+        }
+    }
+
+    @Test
+    void lookupsUseIndexes() {
+        try (ConfigurableApplicationContext context = start()) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+            String entriesPlan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT id FROM \"entry\" WHERE user_id = 'u' AND start_time >= TIMESTAMP '2024-01-01 00:00:00' ORDER BY start_time",
+                String.class);
+            assertTrue(entriesPlan.toUpperCase().contains("IDX_ENTRY_USER_START"), entriesPlan);
+            assertFalse(entriesPlan.contains("tableScan"), entriesPlan);
+
+            String usernamePlan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT id FROM \"user\" WHERE username = 'sleeper'",
+                String.class);
+            assertTrue(usernamePlan.toUpperCase().contains("UK_USER_USERNAME"), usernamePlan);
+            assertFalse(usernamePlan.contains("tableScan"), usernamePlan);
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.example.back;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+class SharedSessionTests {
+
+    private static final String DATABASE = "jdbc:h2:mem:shared-sessions;DB_CLOSE_DELAY=-1";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private ConfigurableApplicationContext startNode(boolean createSchema) {
+        // arguments, not default properties, which application.properties would override
+        return new SpringApplicationBuilder(BackApplication.class)
+            .run(
+                "--server.port=0",
+                "--spring.datasource.url=" + DATABASE,
+                "--spring.jpa.hibernate.ddl-auto=" + (createSchema ? "create" : "none"),
+                "--spring.session.jdbc.initialize-schema=" + (createSchema ? "embedded" : "never"),
+                "--security.password.bcrypt-strength=4"
+            );
+    }
+
+    private String url(ConfigurableApplicationContext node, String path) {
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        return "http://localhost:" + port + path;
+    }
+
+    private HttpResponse<String> post(String url, String json, String cookie) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String url, String cookie) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).GET();
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void sessionCreatedOnOneNodeIsAcceptedByAnother() throws Exception {
+        try (ConfigurableApplicationContext nodeA = startNode(true);
+             ConfigurableApplicationContext nodeB = startNode(false)) {
+
+            HttpResponse<String> anonymous = get(url(nodeA, "/auth/status"), null);
+            assertTrue(anonymous.headers().firstValue("Set-Cookie").isEmpty(), "anonymous status call created a session");
+
+            String credentials = "{\"username\":\"traveller\",\"password\":\"secret\"}";
+            post(url(nodeA, "/auth/signup"), credentials, null);
+            HttpResponse<String> signin = post(url(nodeA, "/auth/signin"), credentials, null);
+            assertTrue(signin.body().contains("\"success\":true"), signin.body());
+
+            Optional<String> setCookie = signin.headers().firstValue("Set-Cookie");
+            assertTrue(setCookie.isPresent(), "sign-in did not create a session");
+            String cookie = setCookie.get().split(";", 2)[0];
+            assertTrue(cookie.startsWith("SESSION="), cookie);
+
+            HttpResponse<String> status = get(url(nodeB, "/auth/status"), cookie);
+            assertEquals(200, status.statusCode());
+            assertTrue(status.body().contains("\"success\":true"), status.body());
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.example.back.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import com.example.back.entities.EntryEntity;
+import com.example.back.projections.EntryRow;
+
+final class BenchmarkData {
+
+    private static final long DAY = 86_400_000L;
+    private static final long FIRST_NIGHT = 1_672_610_400_000L; // 2023-01-01T22:00:00Z
+
+    private BenchmarkData() {}
+
+    static List<EntryEntity> entries(int count) {
+        Random random = new Random(42);
+        String userId = UUID.randomUUID().toString();
+        List<EntryEntity> entries = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            long start = FIRST_NIGHT + i * DAY + random.nextInt(180) * 60_000L;
+            long end = start + (300 + random.nextInt(300)) * 60_000L;
+            entries.add(EntryEntity.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(userId)
+                .start(new Date(start))
+                .end(new Date(end))
+                .rate(1 + random.nextInt(10))
+                .notes(random.nextInt(4) == 0 ? "woke up twice, coffee after 18:00" : "")
+                .build());
+        }
+
+        return entries;
+    }
+
+    static List<EntryRow> rows(int count) {
+        return entries(count).stream()
+            .map(entry -> new EntryRow(entry.getId(), entry.getStart(), entry.getEnd(), entry.getRate(), entry.getNotes()))
+            .toList();
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.example.back.benchmarks;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import com.example.back.BackApplication;
+import com.example.back.entities.EntryEntity;
+import com.example.back.projections.EntryPoint;
+import com.example.back.repositories.EntryRepository;
+import com.example.back.services.EntryService;
+import com.example.back.services.EntryService.CompactEntryPage;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntryRepositoryBenchmark {
+
+    @Param({ "1000", "10000" })
+    private int entries;
+
+    private static final Date FROM = new Date(0);
+    private static final Date TO = new Date(4_102_444_800_000L); // 2100-01-01
+
+    private ConfigurableApplicationContext context;
+    private EntryRepository entryRepository;
+    private EntryService entryService;
+    private String userId;
+
+    // the whole application against its embedded H2, on a random port and without the SQL logging;
+    // arguments, not default properties, which application.properties would override
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(BackApplication.class)
+            .run(
+                "--server.port=0",
+                "--llm.api-key=benchmark",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.org.springframework.boot.autoconfigure=WARN"
+            );
+
+        entryRepository = context.getBean(EntryRepository.class);
+        entryService = context.getBean(EntryService.class);
+
+        List<EntryEntity> history = BenchmarkData.entries(entries);
+        userId = history.get(0).getUserId();
+        entryService.insertEntries(userId, history);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<EntryEntity> allEntities() {
+        return entryRepository.getByUserId(userId);
+    }
+
+    @Benchmark
+    public List<EntryEntity> entityPage() throws Exception {
+        return entryService.getEntriesPage(userId, null, null, null, 200).entries();
+    }
+
+    @Benchmark
+    public CompactEntryPage compactPage() throws Exception {
+        return entryService.getCompactEntriesPage(userId, null, null, null, 1000);
+    }
+
+    @Benchmark
+    public List<EntryPoint> pointsInRange() {
+        return entryRepository.findPoints(userId, FROM, TO);
+    }
+
+}
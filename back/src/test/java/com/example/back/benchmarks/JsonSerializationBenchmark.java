@@ -0,0 +1,58 @@
+package com.example.back.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.back.entities.EntryEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({ "200", "1000", "10000" })
+    private int entries;
+
+    // the same builder the MVC message converter uses, so the output matches the wire format
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private List<EntryEntity> list;
+    private EntriesResp resp;
+
+    @Setup
+    public void setup() {
+        list = BenchmarkData.entries(entries);
+        resp = new EntriesResp(true, null, list.toArray(new EntryEntity[0]), "MTcwMDAwMDAwMDAwMDpzb21lLWlk");
+    }
+
+    @Benchmark
+    public byte[] entryList() throws Exception {
+        return objectMapper.writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public byte[] entriesResp() throws Exception {
+        return objectMapper.writeValueAsBytes(resp);
+    }
+
+    // mirrors the private response record of EntryController
+    private record EntriesResp(Boolean success, String[] errors, EntryEntity[] entries, String nextCursor) {};
+
+}
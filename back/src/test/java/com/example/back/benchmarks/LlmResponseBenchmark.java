@@ -0,0 +1,89 @@
+package com.example.back.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.back.exceptions.LlmRequestException;
+import com.example.back.services.LlmResponseParser;
+import com.example.back.services.ThinkTagFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LlmResponseBenchmark {
+
+    // reasoning models often think for several times the length of the visible answer
+    @Param({ "0", "4000", "40000" })
+    private int thinkChars;
+
+    @Param({ "2000" })
+    private int answerChars;
+
+    private final LlmResponseParser responseParser = new LlmResponseParser();
+
+    private byte[] body;
+    private String[] chunks;
+
+    @Setup
+    public void setup() throws Exception {
+        StringBuilder text = new StringBuilder();
+        if (thinkChars > 0) {
+            text.append("<think>").append(words(thinkChars)).append("</think>\n\n");
+        }
+        text.append(words(answerChars));
+        String content = text.toString();
+
+        body = ("{\"id\":\"bench\",\"object\":\"chat.completion\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":"
+            + new ObjectMapper().writeValueAsString(content)
+            + "},\"finish_reason\":\"stop\"}],\"usage\":{\"prompt_tokens\":1800,\"completion_tokens\":900}}").getBytes(StandardCharsets.UTF_8);
+
+        // streamed deltas are a few characters each
+        chunks = new String[(content.length() + 7) / 8];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = content.substring(i * 8, Math.min(content.length(), i * 8 + 8));
+        }
+    }
+
+    private static String words(int length) {
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append("сон длился около семи часов, ");
+        }
+        return text.substring(0, length);
+    }
+
+    // parsing and think stripping happen in one pass over the body
+    @Benchmark
+    public String parseCompletion() throws IOException, LlmRequestException {
+        return responseParser.parseCompletion(new ByteArrayInputStream(body)).content();
+    }
+
+    @Benchmark
+    public int streamFilter() {
+        ThinkTagFilter thinkTagFilter = new ThinkTagFilter();
+        int visible = 0;
+        for (String chunk : chunks) {
+            visible += thinkTagFilter.feed(chunk).length();
+        }
+        return visible + thinkTagFilter.finish().length();
+    }
+
+}
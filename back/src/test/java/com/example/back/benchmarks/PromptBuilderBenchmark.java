@@ -0,0 +1,55 @@
+package com.example.back.benchmarks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.back.configurations.AnalyticsPromptProperties;
+import com.example.back.configurations.AnalyticsProperties;
+import com.example.back.projections.EntryRow;
+import com.example.back.services.PromptBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBuilderBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    private int entries;
+
+    // same size as the all-entries instructions in AnalyticsService
+    private static final String INSTRUCTIONS = "x".repeat(2_800);
+
+    private final PromptBuilder promptBuilder = new PromptBuilder(
+        new AnalyticsProperties("UTC"),
+        new AnalyticsPromptProperties(3000, 4, Duration.ofDays(90), 160)
+    );
+
+    private List<EntryRow> history;
+
+    @Setup
+    public void setup() {
+        history = BenchmarkData.rows(entries);
+    }
+
+    @Benchmark
+    public String buildEntriesPrompt() {
+        return promptBuilder.buildEntriesPrompt(INSTRUCTIONS, history);
+    }
+
+}
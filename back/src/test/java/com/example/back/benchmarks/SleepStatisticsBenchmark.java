@@ -0,0 +1,53 @@
+package com.example.back.benchmarks;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.back.entities.EntryEntity;
+import com.example.back.services.SleepStatisticsService;
+import com.example.back.services.SleepStatisticsService.SleepStatistics;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SleepStatisticsBenchmark {
+
+    @Param({ "100", "1000", "5000" })
+    private int entries;
+
+    @Param({ "UTC", "Europe/Moscow", "America/New_York" })
+    private String zone;
+
+    private final SleepStatisticsService sleepStatisticsService = new SleepStatisticsService();
+
+    private List<EntryEntity> history;
+    private ZoneId zoneId;
+
+    @Setup
+    public void setup() {
+        history = BenchmarkData.entries(entries);
+        zoneId = ZoneId.of(zone);
+    }
+
+    @Benchmark
+    public SleepStatistics compute() {
+        return sleepStatisticsService.compute(history, zoneId);
+    }
+
+}
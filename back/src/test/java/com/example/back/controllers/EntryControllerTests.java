@@ -0,0 +1,63 @@
+package com.example.back.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.back.BackApplication;
+
+class EntryControllerTests {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private String baseUrl;
+
+    private HttpResponse<String> post(String path, String json, String cookie) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path, String cookie) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Cookie", cookie).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void malformedCursorIsABadRequest() throws Exception {
+        // arguments, not default properties, which application.properties would override
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(BackApplication.class)
+                 .run(
+                     "--server.port=0",
+                     "--spring.datasource.url=jdbc:h2:mem:entry-controller;DB_CLOSE_DELAY=-1",
+                     "--security.password.bcrypt-strength=4"
+                 )) {
+
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+            String credentials = "{\"username\":\"pager\",\"password\":\"secret\"}";
+            post("/auth/signup", credentials, null);
+            String cookie = post("/auth/signin", credentials, null).headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+
+            HttpResponse<String> full = get("/entry/entries?cursor=not-a-cursor", cookie);
+            assertEquals(400, full.statusCode());
+            assertTrue(full.body().contains("\"success\":false"), full.body());
+
+            assertEquals(400, get("/entry/entries?format=compact&cursor=not-a-cursor", cookie).statusCode());
+            assertEquals(200, get("/entry/entries", cookie).statusCode());
+        }
+    }
+
+}
@@ -0,0 +1,308 @@
+package com.example.back.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.back.BackApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// starts the application against a stub provider and drives it with concurrent signed-in sessions
+public class LoadHarness {
+
+    public enum Action { ENTRIES, ADD_ENTRY, STATS, TRENDS, NOTES, FORALL }
+
+    public record Settings(
+        int users,
+        Duration duration,
+        Duration thinkTime,
+        Map<Action, Integer> mix,
+        int bcryptStrength,
+        Duration llmLatency,
+        Duration llmTokenDelay,
+        int llmThinkTokens,
+        int llmAnswerTokens
+    ) {
+        // mostly chart reads and nightly writes, a few analytics calls
+        public static Map<Action, Integer> defaultMix() {
+            Map<Action, Integer> mix = new LinkedHashMap<>();
+            mix.put(Action.ENTRIES, 50);
+            mix.put(Action.ADD_ENTRY, 20);
+            mix.put(Action.STATS, 10);
+            mix.put(Action.TRENDS, 10);
+            mix.put(Action.NOTES, 5);
+            mix.put(Action.FORALL, 5);
+            return mix;
+        }
+    };
+
+    public record EndpointStats(String endpoint, int requests, int errors, int limited, double throughput,
+                                double p50Millis, double p95Millis, double p99Millis, double maxMillis) {};
+
+    public record Report(int users, double seconds, int requests, double throughput, int llmRequests,
+                         List<EndpointStats> endpoints) {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final Map<String, Latencies> latencies = new ConcurrentHashMap<>();
+
+    private final Settings settings;
+    private String baseUrl;
+
+    public LoadHarness(Settings settings) {
+        this.settings = settings;
+    }
+
+    public Report run() throws Exception {
+        try (StubLlmServer llm = new StubLlmServer(settings.llmLatency(), settings.llmTokenDelay(), settings.llmThinkTokens(), settings.llmAnswerTokens());
+             ConfigurableApplicationContext app = start(llm)) {
+
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+
+            ExecutorService virtualUsers = Executors.newFixedThreadPool(settings.users());
+            long started = System.nanoTime();
+            long deadline = started + settings.duration().toNanos();
+
+            List<Future<?>> sessions = new ArrayList<>();
+            for (int user = 0; user < settings.users(); user++) {
+                long seed = user;
+                sessions.add(virtualUsers.submit(() -> {
+                    session(new Random(seed), deadline);
+                    return null;
+                }));
+            }
+            for (Future<?> session : sessions) {
+                session.get();
+            }
+            virtualUsers.shutdown();
+
+            double seconds = (System.nanoTime() - started) / 1e9;
+            return report(seconds, llm.getRequests());
+        }
+    }
+
+    // quotas are lifted and the per-request logging is silenced, so the numbers show the server rather than the limiter or the console;
+    // arguments, not default properties, which application.properties would override
+    private ConfigurableApplicationContext start(StubLlmServer llm) {
+        return new SpringApplicationBuilder(BackApplication.class)
+            .run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.org.springframework.boot.autoconfigure=WARN",
+                "--security.password.bcrypt-strength=" + settings.bcryptStrength(),
+                "--llm.url=" + llm.url(),
+                "--llm.api-key=load-test",
+                "--analytics.rate-limit.entry-capacity=1000000",
+                "--analytics.rate-limit.all-entries-capacity=1000000"
+            );
+    }
+
+    private void session(Random random, long deadline) throws InterruptedException {
+        String credentials = "{\"username\":\"load-" + UUID.randomUUID() + "\",\"password\":\"secret\"}";
+        send("POST /auth/signup", post("/auth/signup", credentials, null));
+        HttpResponse<String> signin = send("POST /auth/signin", post("/auth/signin", credentials, null));
+        if (signin == null) {
+            return;
+        }
+
+        String cookie = signin.headers().firstValue("Set-Cookie").map(header -> header.split(";", 2)[0]).orElse(null);
+        if (cookie == null) {
+            return;
+        }
+
+        List<String> entryIds = new ArrayList<>();
+        long night = LocalDate.of(2024, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli() + 22 * 3_600_000L;
+
+        while (System.nanoTime() < deadline) {
+            switch (pick(random)) {
+                case ENTRIES -> send("GET /entry/entries", get("/entry/entries?limit=200", cookie));
+                case ADD_ENTRY -> {
+                    long start = night + entryIds.size() * 86_400_000L + random.nextInt(120) * 60_000L;
+                    long end = start + (360 + random.nextInt(180)) * 60_000L;
+                    String entry = "{\"start\":" + start + ",\"end\":" + end + ",\"rate\":" + (1 + random.nextInt(10)) + ",\"notes\":\"load\"}";
+                    HttpResponse<String> added = send("POST /entry/add", post("/entry/add", entry, cookie));
+                    String entryId = field(added, "entryId");
+                    if (entryId != null) {
+                        entryIds.add(entryId);
+                    }
+                }
+                case STATS -> send("GET /analytics/stats", get("/analytics/stats", cookie));
+                case TRENDS -> send("GET /analytics/trends", get("/analytics/trends?period=week&from=2024-01-01&to=2030-12-31", cookie));
+                case NOTES -> {
+                    if (!entryIds.isEmpty()) {
+                        String entryId = entryIds.get(random.nextInt(entryIds.size()));
+                        send("POST /analytics/notes", post("/analytics/notes", "{\"entryId\":\"" + entryId + "\"}", cookie));
+                    }
+                }
+                case FORALL -> send("GET /analytics/forall", get("/analytics/forall", cookie));
+            }
+
+            if (!settings.thinkTime().isZero()) {
+                Thread.sleep(random.nextInt((int) settings.thinkTime().toMillis() * 2 + 1));
+            }
+        }
+    }
+
+    private Action pick(Random random) {
+        int total = settings.mix().values().stream().mapToInt(Integer::intValue).sum();
+        int roll = random.nextInt(total);
+        for (Map.Entry<Action, Integer> weight : settings.mix().entrySet()) {
+            roll -= weight.getValue();
+            if (roll < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private HttpRequest post(String path, String json, String cookie) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofMinutes(2))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        return request.build();
+    }
+
+    private HttpRequest get(String path, String cookie) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofMinutes(2))
+            .header("Cookie", cookie)
+            .GET()
+            .build();
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest request) throws InterruptedException {
+        Latencies log = latencies.computeIfAbsent(endpoint, name -> new Latencies());
+        long start = System.nanoTime();
+
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.record(System.nanoTime() - start, Outcome.ERROR);
+            return null;
+        }
+
+        int status = response.statusCode();
+        Outcome outcome = status == 429 ? Outcome.LIMITED
+            : status >= 400 || response.body().contains("\"success\":false") || providerError(response.body()) ? Outcome.ERROR
+            : Outcome.OK;
+        log.record(System.nanoTime() - start, outcome);
+        return response;
+    }
+
+    // a failed provider call still answers 200: the error text comes back as the report, or as an error event on a stream
+    private static boolean providerError(String body) {
+        return body.contains("event:error")
+            || body.contains("\"data\":\"Analytics provider")
+            || body.contains("\"data\":\"Too many analytics requests\"");
+    }
+
+    private String field(HttpResponse<String> response, String name) {
+        if (response == null || response.statusCode() != 200) {
+            return null;
+        }
+        try {
+            JsonNode value = objectMapper.readTree(response.body()).path(name);
+            return value.isTextual() ? value.asText() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private Report report(double seconds, int llmRequests) {
+        List<EndpointStats> endpoints = new ArrayList<>();
+        int requests = 0;
+        for (Map.Entry<String, Latencies> endpoint : latencies.entrySet()) {
+            endpoints.add(endpoint.getValue().stats(endpoint.getKey(), seconds));
+            requests += endpoint.getValue().count();
+        }
+        endpoints.sort((a, b) -> a.endpoint().compareTo(b.endpoint()));
+
+        return new Report(settings.users(), seconds, requests, requests / seconds, llmRequests, endpoints);
+    }
+
+    public static String format(Report report) {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.ROOT, "%d users, %.1f s, %d requests, %.1f req/s, %d provider calls%n",
+            report.users(), report.seconds(), report.requests(), report.throughput(), report.llmRequests()));
+        table.append(String.format(Locale.ROOT, "%-24s %8s %7s %7s %9s %9s %9s %9s %9s%n",
+            "endpoint", "requests", "errors", "limited", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (EndpointStats stats : report.endpoints()) {
+            table.append(String.format(Locale.ROOT, "%-24s %8d %7d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                stats.endpoint(), stats.requests(), stats.errors(), stats.limited(), stats.throughput(),
+                stats.p50Millis(), stats.p95Millis(), stats.p99Millis(), stats.maxMillis()));
+        }
+        return table.toString();
+    }
+
+    private enum Outcome { OK, LIMITED, ERROR }
+
+    private static class Latencies {
+        private long[] nanos = new long[1024];
+        private int count = 0;
+        private int errors = 0;
+        private int limited = 0;
+
+        synchronized void record(long elapsed, Outcome outcome) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = elapsed;
+            errors += outcome == Outcome.ERROR ? 1 : 0;
+            limited += outcome == Outcome.LIMITED ? 1 : 0;
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized EndpointStats stats(String endpoint, double seconds) {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            return new EndpointStats(endpoint, count, errors, limited, count / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        }
+
+        // nearest rank
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+
+}
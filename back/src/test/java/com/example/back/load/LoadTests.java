@@ -0,0 +1,75 @@
+package com.example.back.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.example.back.load.LoadHarness.Action;
+import com.example.back.load.LoadHarness.EndpointStats;
+import com.example.back.load.LoadHarness.Report;
+import com.example.back.load.LoadHarness.Settings;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class LoadTests {
+
+    // keeps the harness itself working on every build, the numbers are meaningless at this size;
+    // an even mix makes the few actions of each session reach the analytics endpoints as well
+    @Test
+    void smokeRunCompletesWithoutErrors() throws Exception {
+        Map<Action, Integer> evenMix = new EnumMap<>(Action.class);
+        for (Action action : Action.values()) {
+            evenMix.put(action, 1);
+        }
+
+        Report report = new LoadHarness(new Settings(
+            4,
+            Duration.ofSeconds(5),
+            Duration.ZERO,
+            evenMix,
+            4,
+            Duration.ofMillis(20),
+            Duration.ZERO,
+            5,
+            10
+        )).run();
+
+        assertTrue(report.requests() > 0);
+        assertTrue(report.llmRequests() > 0, () -> "no request reached the stub provider\n" + LoadHarness.format(report));
+        for (EndpointStats stats : report.endpoints()) {
+            assertEquals(0, stats.errors(), () -> LoadHarness.format(report));
+        }
+    }
+
+    // mvn test -Dtest=LoadTests -Dload.enabled=true [-Dload.users=200 -Dload.duration=PT2M ...]
+    @Test
+    @EnabledIfSystemProperty(named = "load.enabled", matches = "true")
+    void capacityRun() throws Exception {
+        Settings settings = new Settings(
+            Integer.getInteger("load.users", 50),
+            Duration.parse(System.getProperty("load.duration", "PT60S")),
+            Duration.parse(System.getProperty("load.think-time", "PT0.1S")),
+            Settings.defaultMix(),
+            Integer.getInteger("load.bcrypt-strength", 12),
+            Duration.parse(System.getProperty("load.llm-latency", "PT1S")),
+            Duration.parse(System.getProperty("load.llm-token-delay", "PT0.005S")),
+            Integer.getInteger("load.llm-think-tokens", 200),
+            Integer.getInteger("load.llm-answer-tokens", 300)
+        );
+
+        Report report = new LoadHarness(settings).run();
+
+        Path result = Path.of(System.getProperty("load.result", "target/load-result.json"));
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(result.toFile(), report);
+        Files.writeString(result.resolveSibling(result.getFileName().toString().replaceFirst("\\.json$", "") + ".txt"), LoadHarness.format(report));
+    }
+
+}
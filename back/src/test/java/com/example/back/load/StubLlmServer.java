@@ -0,0 +1,175 @@
+package com.example.back.load;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// a chat-completions endpoint that answers after a fixed latency plus a delay per generated token,
+// as a plain completion or as server-sent deltas, with a reasoning block and a usage report like the real provider
+public class StubLlmServer implements AutoCloseable {
+
+    private static final String TOKEN = "сон ";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final Duration latency;
+    private final Duration tokenDelay;
+    private final int thinkTokens;
+    private final int answerTokens;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicLong completionTokens = new AtomicLong();
+    private volatile String lastPrompt;
+    private volatile int failureStatus;
+
+    public StubLlmServer(Duration latency, Duration tokenDelay, int thinkTokens, int answerTokens) throws IOException {
+        this.latency = latency;
+        this.tokenDelay = tokenDelay;
+        this.thinkTokens = thinkTokens;
+        this.answerTokens = answerTokens;
+
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-llm");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions";
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    public long getCompletionTokens() {
+        return completionTokens.get();
+    }
+
+    public String getLastPrompt() {
+        return lastPrompt;
+    }
+
+    // a status of 0 goes back to answering normally
+    public void failWith(int status) {
+        failureStatus = status;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        lastPrompt = request.path("messages").path(0).path("content").asText();
+        int promptTokens = lastPrompt.length() / 4;
+        int tokens = thinkTokens + answerTokens;
+        completionTokens.addAndGet(tokens);
+
+        try {
+            Thread.sleep(latency.toMillis());
+            if (failureStatus != 0) {
+                exchange.sendResponseHeaders(failureStatus, -1);
+            } else if (request.path("stream").asBoolean(false)) {
+                stream(exchange, promptTokens, tokens);
+            } else {
+                Thread.sleep(tokenDelay.toMillis() * tokens);
+                complete(exchange, promptTokens, tokens);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void complete(HttpExchange exchange, int promptTokens, int tokens) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            content.append(token(i));
+        }
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.putArray("choices").addObject().putObject("message")
+            .put("role", "assistant")
+            .put("content", content.toString());
+        response.set("usage", usage(promptTokens, tokens));
+        byte[] body = objectMapper.writeValueAsBytes(response);
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private void stream(HttpExchange exchange, int promptTokens, int tokens) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+
+        for (int i = 0; i < tokens; i++) {
+            Thread.sleep(tokenDelay.toMillis());
+            ObjectNode chunk = objectMapper.createObjectNode();
+            chunk.putArray("choices").addObject().putObject("delta").put("content", token(i));
+            event(out, chunk);
+        }
+
+        // include_usage: one last chunk without choices
+        ObjectNode last = objectMapper.createObjectNode();
+        last.putArray("choices");
+        last.set("usage", usage(promptTokens, tokens));
+        event(out, last);
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private String token(int index) {
+        if (thinkTokens == 0) {
+            return TOKEN;
+        }
+
+        String token = index < thinkTokens ? "hmm " : TOKEN;
+        if (index == 0) {
+            token = "<think>" + token;
+        }
+        if (index == thinkTokens - 1) {
+            token = token + "</think>\n\n";
+        }
+        return token;
+    }
+
+    private ObjectNode usage(int promptTokens, int tokens) {
+        return objectMapper.createObjectNode()
+            .put("prompt_tokens", promptTokens)
+            .put("completion_tokens", tokens)
+            .put("total_tokens", promptTokens + tokens);
+    }
+
+    private void event(OutputStream out, JsonNode data) throws IOException {
+        out.write(("data: " + objectMapper.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.example.back.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.example.back.configurations.PasswordProperties;
+
+class BoundedBCryptPasswordEncoderTests {
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private BoundedBCryptPasswordEncoder encoder;
+
+    @AfterEach
+    void shutDown() {
+        release.countDown();
+        encoder.destroy();
+    }
+
+    private BoundedBCryptPasswordEncoder encoder(int queueCapacity, Duration queueTimeout) {
+        encoder = new BoundedBCryptPasswordEncoder(new PasswordProperties(4, 1, queueCapacity, queueTimeout));
+        return encoder;
+    }
+
+    // BCrypt reads the password on the hashing thread, so this one keeps the only worker busy until released;
+    // like a real hash it does not stop when its caller gives up and cancels it
+    private CharSequence blockingPassword() {
+        return new CharSequence() {
+            @Override
+            public String toString() {
+                entered.countDown();
+                boolean interrupted = false;
+                while (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return "secret";
+            }
+
+            @Override
+            public int length() {
+                return 6;
+            }
+
+            @Override
+            public char charAt(int index) {
+                return "secret".charAt(index);
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return "secret".subSequence(start, end);
+            }
+        };
+    }
+
+    private CompletableFuture<String> occupyWorker(BoundedBCryptPasswordEncoder encoder) throws InterruptedException {
+        CompletableFuture<String> busy = CompletableFuture.supplyAsync(() -> encoder.encode(blockingPassword()));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        return busy;
+    }
+
+    @Test
+    void encodesAndMatches() {
+        BoundedBCryptPasswordEncoder encoder = encoder(4, Duration.ofSeconds(5));
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(hash.startsWith("$2a$04$"), hash);
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("other", hash));
+    }
+
+    @Test
+    void onlyOtherCostsNeedAnUpgrade() {
+        BoundedBCryptPasswordEncoder encoder = encoder(4, Duration.ofSeconds(5));
+
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("secret")));
+        assertFalse(encoder.upgradeEncoding("plain"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @Test
+    void waitingLongerThanTheQueueTimeoutFails() throws Exception {
+        BoundedBCryptPasswordEncoder encoder = encoder(4, Duration.ofMillis(200));
+        occupyWorker(encoder);
+
+        AuthenticationServiceException e = assertThrows(AuthenticationServiceException.class, () -> encoder.encode("secret"));
+        assertEquals("Too many sign-in attempts, try again later", e.getMessage());
+    }
+
+    @Test
+    void fullQueueIsRejectedAtOnce() throws Exception {
+        BoundedBCryptPasswordEncoder encoder = encoder(1, Duration.ofSeconds(30));
+        CompletableFuture<String> busy = occupyWorker(encoder);
+
+        // the second hash takes the only queue slot; its caller is then waiting on the result
+        Thread queued = new Thread(() -> encoder.encode("secret"));
+        queued.start();
+        while (queued.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(5);
+        }
+
+        long start = System.nanoTime();
+        assertThrows(AuthenticationServiceException.class, () -> encoder.encode("secret"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+        release.countDown();
+        assertTrue(busy.get(5, TimeUnit.SECONDS).startsWith("$2a$04$"));
+        queued.join(5_000);
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.example.back.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.example.back.configurations.PasswordProperties;
+
+class RehashingAuthenticationProviderTests {
+
+    private final BoundedBCryptPasswordEncoder encoder = new BoundedBCryptPasswordEncoder(
+        new PasswordProperties(4, 1, 4, Duration.ofSeconds(5)));
+
+    private String storedHash;
+    private String updatedHash;
+
+    @AfterEach
+    void shutDown() {
+        encoder.destroy();
+    }
+
+    private RehashingAuthenticationProvider provider(BoundedBCryptPasswordEncoder passwordEncoder) {
+        return new RehashingAuthenticationProvider(
+            username -> User.withUsername(username).password(storedHash).roles("USER").build(),
+            passwordEncoder,
+            (user, newPassword) -> {
+                updatedHash = newPassword;
+                return User.withUserDetails(user).password(newPassword).build();
+            });
+    }
+
+    private Authentication signIn(RehashingAuthenticationProvider provider, String password) {
+        return provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("sleeper", password));
+    }
+
+    @Test
+    void olderCostIsRehashedOnSignIn() {
+        storedHash = new BCryptPasswordEncoder(5).encode("secret");
+
+        Authentication authentication = signIn(provider(encoder), "secret");
+
+        assertTrue(authentication.isAuthenticated());
+        assertTrue(updatedHash.startsWith("$2a$04$"), updatedHash);
+        assertTrue(encoder.matches("secret", updatedHash));
+    }
+
+    @Test
+    void currentCostIsLeftAlone() {
+        storedHash = encoder.encode("secret");
+
+        assertTrue(signIn(provider(encoder), "secret").isAuthenticated());
+        assertNull(updatedHash);
+    }
+
+    @Test
+    void busyPoolSkipsTheRehashButNotTheSignIn() {
+        storedHash = new BCryptPasswordEncoder(5).encode("secret");
+        // only the rehash is refused; the provider also hashes a dummy password once for its timing protection
+        BoundedBCryptPasswordEncoder saturated = new BoundedBCryptPasswordEncoder(new PasswordProperties(4, 1, 4, Duration.ofSeconds(5))) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                if ("secret".contentEquals(rawPassword)) {
+                    throw new AuthenticationServiceException("Too many sign-in attempts, try again later");
+                }
+                return super.encode(rawPassword);
+            }
+        };
+
+        try {
+            Authentication authentication = signIn(provider(saturated), "secret");
+
+            assertTrue(authentication.isAuthenticated());
+            assertEquals("sleeper", authentication.getName());
+            assertNull(updatedHash);
+        } finally {
+            saturated.destroy();
+        }
+    }
+
+    @Test
+    void wrongPasswordIsNotRehashed() {
+        storedHash = new BCryptPasswordEncoder(5).encode("secret");
+
+        assertThrows(BadCredentialsException.class, () -> signIn(provider(encoder), "wrong"));
+        assertNull(updatedHash);
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.back.configurations.AnalyticsJobProperties;
+import com.example.back.entities.AnalyticsReportEntity;
+import com.example.back.entities.EntryEntity;
+import com.example.back.exceptions.JobNotExistsException;
+import com.example.back.exceptions.JobRejectedException;
+import com.example.back.load.StubLlmServer;
+import com.example.back.services.AnalyticsJobService.JobView;
+import com.example.back.services.AnalyticsJobService.Status;
+
+@SpringBootTest
+class AnalyticsJobServiceTests {
+
+    private static final StubLlmServer llm = startStub();
+
+    private static StubLlmServer startStub() {
+        try {
+            // slow enough that a second submission finds the first job still running
+            return new StubLlmServer(Duration.ofMillis(300), Duration.ZERO, 2, 3);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("llm.url", llm::url);
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:jobs;DB_CLOSE_DELAY=-1");
+    }
+
+    @Autowired
+    private AnalyticsJobService analyticsJobService;
+
+    @Autowired
+    private AnalyticsReportService analyticsReportService;
+
+    @Autowired
+    private LlmClient llmClient;
+
+    @Autowired
+    private EntryService entryService;
+
+    @AfterEach
+    void answerAgain() {
+        llm.failWith(0);
+    }
+
+    // the notes differ per user, so no test is answered from another one's cached report
+    private String userWithANight() {
+        String userId = UUID.randomUUID().toString();
+        Instant start = Instant.parse("2024-01-01T22:00:00Z");
+        EntryEntity entryEntity = new EntryEntity();
+        entryEntity.setUserId(userId);
+        entryEntity.setStart(Date.from(start));
+        entryEntity.setEnd(Date.from(start.plus(Duration.ofHours(8))));
+        entryEntity.setRate(7);
+        entryEntity.setNotes(userId);
+        entryService.saveEntry(entryEntity);
+        return userId;
+    }
+
+    @Test
+    void jobFinishesWithTheAnswer() throws Exception {
+        String userId = userWithANight();
+
+        JobView submitted = analyticsJobService.submitForAll(userId);
+        JobView finished = analyticsJobService.awaitJob(submitted.jobId(), userId).get(10, TimeUnit.SECONDS);
+
+        assertEquals(Status.DONE, finished.status());
+        assertTrue(finished.data().startsWith("сон"), finished.data());
+    }
+
+    @Test
+    void jobServesTheStoredReport() throws Exception {
+        String userId = userWithANight();
+        analyticsReportService.storeReport(AnalyticsReportEntity.builder()
+            .userId(userId)
+            .dataVersion(entryService.getDataVersion(userId))
+            .model(llmClient.getModel())
+            .report("stored overnight")
+            .generatedAt(new Date())
+            .entryCount(1)
+            .incrementalRuns(0)
+            .build());
+        int requestsBefore = llm.getRequests();
+
+        JobView submitted = analyticsJobService.submitForAll(userId);
+        JobView finished = analyticsJobService.awaitJob(submitted.jobId(), userId).get(10, TimeUnit.SECONDS);
+
+        assertEquals("stored overnight", finished.data());
+        assertEquals(requestsBefore, llm.getRequests());
+    }
+
+    @Test
+    void providerErrorFailsTheJob() throws Exception {
+        String userId = userWithANight();
+        llm.failWith(503);
+
+        JobView submitted = analyticsJobService.submitForAll(userId);
+        JobView finished = analyticsJobService.awaitJob(submitted.jobId(), userId).get(10, TimeUnit.SECONDS);
+
+        assertEquals(Status.FAILED, finished.status());
+        assertEquals("Analytics provider error", finished.data());
+        assertEquals(Status.FAILED, analyticsJobService.getJob(submitted.jobId(), userId).status());
+    }
+
+    @Test
+    void jobIsVisibleOnlyToItsOwner() throws Exception {
+        String userId = userWithANight();
+
+        JobView submitted = analyticsJobService.submitForAll(userId);
+
+        assertThrows(JobNotExistsException.class, () -> analyticsJobService.getJob(submitted.jobId(), "someone-else"));
+        analyticsJobService.awaitJob(submitted.jobId(), userId).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void concurrentSubmissionsShareOneJob() throws Exception {
+        String userId = userWithANight();
+        int requestsBefore = llm.getRequests();
+
+        List<CompletableFuture<JobView>> submissions = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            submissions.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return analyticsJobService.submitForAll(userId);
+                } catch (JobRejectedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        Set<String> jobIds = new HashSet<>();
+        for (CompletableFuture<JobView> submission : submissions) {
+            jobIds.add(submission.get(10, TimeUnit.SECONDS).jobId());
+        }
+
+        assertEquals(1, jobIds.size());
+        String jobId = jobIds.iterator().next();
+        assertEquals(Status.DONE, analyticsJobService.awaitJob(jobId, userId).get(10, TimeUnit.SECONDS).status());
+        assertEquals(requestsBefore + 1, llm.getRequests());
+
+        // a finished job is no longer shared, the next submission starts a new one
+        assertNotEquals(jobId, analyticsJobService.submitForAll(userId).jobId());
+    }
+
+    @Test
+    void finishedJobsExpireAfterTheRetention() throws Exception {
+        AnalyticsJobService shortLived = new AnalyticsJobService(analyticsReportService, entryService,
+            new AnalyticsJobProperties(1, 10, Duration.ofMillis(500), Duration.ofSeconds(60), Duration.ofMinutes(5), 1));
+        try {
+            String userId = userWithANight();
+            JobView submitted = shortLived.submitForAll(userId);
+            shortLived.awaitJob(submitted.jobId(), userId).get(10, TimeUnit.SECONDS);
+            assertEquals(Status.DONE, shortLived.getJob(submitted.jobId(), userId).status());
+
+            Thread.sleep(700);
+
+            assertThrows(JobNotExistsException.class, () -> shortLived.getJob(submitted.jobId(), userId));
+        } finally {
+            shortLived.destroy();
+        }
+    }
+
+    @Test
+    void openStreamsDoNotHoldBackJobs() throws Exception {
+        AnalyticsJobService service = new AnalyticsJobService(analyticsReportService, entryService,
+            new AnalyticsJobProperties(1, 10, Duration.ofMinutes(15), Duration.ofSeconds(60), Duration.ofMinutes(5), 1));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            service.runStream(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            // the stream pool is full and refuses at once, the job pool is untouched
+            assertThrows(JobRejectedException.class, () -> service.runStream(() -> {}));
+            String userId = userWithANight();
+            JobView submitted = service.submitForAll(userId);
+            assertEquals(Status.DONE, service.awaitJob(submitted.jobId(), userId).get(10, TimeUnit.SECONDS).status());
+        } finally {
+            release.countDown();
+            service.destroy();
+        }
+    }
+
+}
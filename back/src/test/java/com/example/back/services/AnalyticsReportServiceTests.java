@@ -0,0 +1,214 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.back.entities.AnalyticsReportEntity;
+import com.example.back.entities.EntryEntity;
+import com.example.back.load.StubLlmServer;
+import com.example.back.repositories.AnalyticsReportRepository;
+
+@SpringBootTest
+class AnalyticsReportServiceTests {
+
+    private static final StubLlmServer llm = startStub();
+
+    private static StubLlmServer startStub() {
+        try {
+            return new StubLlmServer(Duration.ZERO, Duration.ZERO, 2, 3);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // a database of its own, this context runs with different properties than the shared one
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("llm.url", llm::url);
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:reports;DB_CLOSE_DELAY=-1");
+        registry.add("analytics.summary.full-refresh-every", () -> "2");
+    }
+
+    @Autowired
+    private AnalyticsReportService analyticsReportService;
+
+    @Autowired
+    private AnalyticsReportRepository analyticsReportRepository;
+
+    @Autowired
+    private EntryService entryService;
+
+    @Autowired
+    private LlmClient llmClient;
+
+    private AnalyticsReportEntity report(String userId, long dataVersion, String text) {
+        return AnalyticsReportEntity.builder()
+            .userId(userId)
+            .dataVersion(dataVersion)
+            .model(llmClient.getModel())
+            .report(text)
+            .generatedAt(new Date())
+            .build();
+    }
+
+    private static EntryEntity night(String userId, int day, int rate) {
+        Instant start = Instant.parse("2024-01-01T22:00:00Z").plus(Duration.ofDays(day));
+        EntryEntity entryEntity = new EntryEntity();
+        entryEntity.setUserId(userId);
+        entryEntity.setStart(Date.from(start));
+        entryEntity.setEnd(Date.from(start.plus(Duration.ofHours(8))));
+        entryEntity.setRate(rate);
+        entryEntity.setNotes("night " + day);
+        return entryEntity;
+    }
+
+    // the instructions describe the table header too, the table itself is the last occurrence
+    private static int tableRows(String prompt) {
+        return prompt.substring(prompt.lastIndexOf("start_min|duration_min|rate|notes\n")).split("\n").length - 1;
+    }
+
+    @Test
+    void reportIsServedOnlyForItsVersion() {
+        String userId = UUID.randomUUID().toString();
+        analyticsReportService.storeReport(report(userId, 3, "report"));
+
+        assertEquals(Optional.of("report"), analyticsReportService.findCurrentReport(userId, 3));
+        assertTrue(analyticsReportService.findCurrentReport(userId, 4).isEmpty());
+    }
+
+    @Test
+    void lateOlderReportDoesNotReplaceNewerOne() {
+        String userId = UUID.randomUUID().toString();
+        analyticsReportService.storeReport(report(userId, 5, "newer"));
+        analyticsReportService.storeReport(report(userId, 4, "older"));
+
+        assertEquals(Optional.of("newer"), analyticsReportService.findCurrentReport(userId, 5));
+    }
+
+    @Test
+    void followUpReportsSendOnlyNewNightsUntilTheFullRefresh() throws Exception {
+        String userId = UUID.randomUUID().toString();
+        List<EntryEntity> history = new ArrayList<>();
+        for (int day = 0; day < 30; day++) {
+            history.add(night(userId, day, 1 + day % 10));
+        }
+        entryService.insertEntries(userId, history);
+
+        String first = analyticsReportService.generateReport(userId, 1);
+        assertEquals(30, tableRows(llm.getLastPrompt()));
+
+        entryService.saveEntry(night(userId, 30, 7));
+        entryService.saveEntry(night(userId, 31, 8));
+        analyticsReportService.generateReport(userId, 3);
+        String update = llm.getLastPrompt();
+        assertTrue(update.contains(first), "previous report not sent");
+        assertEquals(2, tableRows(update));
+        assertTrue(update.contains("night 31"));
+        assertFalse(update.contains("night 29"));
+
+        AnalyticsReportEntity stored = analyticsReportRepository.findById(userId).orElseThrow();
+        assertEquals(32, stored.getEntryCount());
+        assertEquals(1, stored.getIncrementalRuns());
+
+        entryService.saveEntry(night(userId, 32, 5));
+        analyticsReportService.generateReport(userId, 4);
+        assertEquals(1, tableRows(llm.getLastPrompt()));
+
+        // the configured number of updates is reached, the whole history goes out again
+        entryService.saveEntry(night(userId, 33, 6));
+        analyticsReportService.generateReport(userId, 5);
+        assertEquals(34, tableRows(llm.getLastPrompt()));
+        assertEquals(0, analyticsReportRepository.findById(userId).orElseThrow().getIncrementalRuns());
+    }
+
+    @Test
+    void previousReportTooLongForTheNewNightsForcesAFullReport() throws Exception {
+        String userId = UUID.randomUUID().toString();
+        List<EntryEntity> history = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            history.add(night(userId, day, 6));
+        }
+        entryService.insertEntries(userId, history);
+        analyticsReportService.generateReport(userId, 1);
+
+        // the previous report alone takes the whole token budget of the update prompt
+        AnalyticsReportEntity stored = analyticsReportRepository.findById(userId).orElseThrow();
+        analyticsReportRepository.save(stored.toBuilder().report("сон ".repeat(3_000)).build());
+
+        entryService.saveEntry(night(userId, 10, 9));
+        analyticsReportService.generateReport(userId, 2);
+
+        assertEquals(11, tableRows(llm.getLastPrompt()));
+        assertEquals(0, analyticsReportRepository.findById(userId).orElseThrow().getIncrementalRuns());
+    }
+
+    @Test
+    void removedCoveredNightForcesAFullReport() throws Exception {
+        String userId = UUID.randomUUID().toString();
+        List<EntryEntity> history = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            history.add(night(userId, day, 6));
+        }
+        entryService.insertEntries(userId, history);
+        analyticsReportService.generateReport(userId, 1);
+
+        entryService.deleteEntry(userId, history.get(3).getId());
+        entryService.saveEntry(night(userId, 10, 9));
+        analyticsReportService.generateReport(userId, 3);
+
+        assertEquals(10, tableRows(llm.getLastPrompt()));
+    }
+
+    @Test
+    void streamedReportIsStoredAndUpdatedLikeAGeneratedOne() throws Exception {
+        String userId = UUID.randomUUID().toString();
+        List<EntryEntity> history = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            history.add(night(userId, day, 6));
+        }
+        entryService.insertEntries(userId, history);
+
+        StringBuilder streamed = new StringBuilder();
+        String report = analyticsReportService.streamReport(userId, 1, streamed::append);
+
+        assertEquals(report, streamed.toString().trim());
+        assertEquals(Optional.of(report), analyticsReportService.findCurrentReport(userId, 1));
+
+        entryService.saveEntry(night(userId, 10, 9));
+        analyticsReportService.streamReport(userId, 2, delta -> {});
+        assertTrue(llm.getLastPrompt().contains(report), "previous report not sent");
+        assertEquals(1, analyticsReportRepository.findById(userId).orElseThrow().getIncrementalRuns());
+    }
+
+    @Test
+    void backoffStopsAfterConsecutiveFailures() {
+        AnalyticsReportService.Backoff backoff = new AnalyticsReportService.Backoff(0, 0, 2);
+
+        backoff.failure();
+        backoff.success();
+        backoff.failure();
+        assertFalse(backoff.exhausted());
+
+        backoff.failure();
+        assertTrue(backoff.exhausted());
+        assertFalse(backoff.awaitTurn());
+    }
+
+}
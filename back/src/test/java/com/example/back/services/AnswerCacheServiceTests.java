@@ -0,0 +1,105 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.back.configurations.AnalyticsCacheProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AnswerCacheServiceTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AnswerCacheService cache(int maxSize, Duration ttl) {
+        return new AnswerCacheService(new AnalyticsCacheProperties(maxSize, ttl), meterRegistry);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("analytics.cache.requests").tag("result", result).functionCounter().count();
+    }
+
+    @Test
+    void keyCoversModelAndPrompt() {
+        AnswerCacheService cache = cache(10, Duration.ofHours(1));
+
+        assertEquals(cache.key("model", "prompt"), cache.key("model", "prompt"));
+        assertNotEquals(cache.key("model", "prompt"), cache.key("other", "prompt"));
+        assertNotEquals(cache.key("model", "prompt"), cache.key("model", "prompt "));
+        // the separator keeps the model and the prompt from running into each other
+        assertNotEquals(cache.key("ab", "c"), cache.key("a", "bc"));
+    }
+
+    @Test
+    void hitsAndMissesAreCounted() {
+        AnswerCacheService cache = cache(10, Duration.ofHours(1));
+
+        assertEquals(Optional.empty(), cache.get("k"));
+        cache.put("k", "alice", "answer");
+        assertEquals(Optional.of("answer"), cache.get("k"));
+
+        assertEquals(1, requests("hit"));
+        assertEquals(1, requests("miss"));
+        assertEquals(1, meterRegistry.get("analytics.cache.size").gauge().value());
+    }
+
+    @Test
+    void expiredAnswerIsAMissAndIsDropped() throws InterruptedException {
+        AnswerCacheService cache = cache(10, Duration.ofMillis(1));
+
+        cache.put("k", "alice", "answer");
+        Thread.sleep(20);
+
+        assertEquals(Optional.empty(), cache.get("k"));
+        assertEquals(0, cache.size());
+        assertEquals(1, requests("miss"));
+        assertEquals(1, meterRegistry.get("analytics.cache.evictions").functionCounter().count());
+    }
+
+    @Test
+    void leastRecentlyUsedAnswerIsEvictedFirst() {
+        AnswerCacheService cache = cache(2, Duration.ofHours(1));
+
+        cache.put("a", "alice", "A");
+        cache.put("b", "alice", "B");
+        cache.get("a");
+        cache.put("c", "alice", "C");
+
+        assertEquals(2, cache.size());
+        assertEquals(Optional.of("A"), cache.get("a"));
+        assertEquals(Optional.empty(), cache.get("b"));
+        assertEquals(Optional.of("C"), cache.get("c"));
+    }
+
+    @Test
+    void evictUserDropsOnlyThatUsersAnswers() {
+        AnswerCacheService cache = cache(10, Duration.ofHours(1));
+
+        cache.put("a1", "alice", "A1");
+        cache.put("a2", "alice", "A2");
+        cache.put("b1", "bob", "B1");
+        cache.evictUser("alice");
+
+        assertEquals(Optional.empty(), cache.get("a1"));
+        assertEquals(Optional.empty(), cache.get("a2"));
+        assertEquals(Optional.of("B1"), cache.get("b1"));
+        assertEquals(2, meterRegistry.get("analytics.cache.evictions").functionCounter().count());
+    }
+
+    @Test
+    void zeroSizeDisablesTheCache() {
+        AnswerCacheService cache = cache(0, Duration.ofHours(1));
+
+        cache.put("k", "alice", "answer");
+
+        assertTrue(cache.get("k").isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+}
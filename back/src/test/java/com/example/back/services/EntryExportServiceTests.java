@@ -0,0 +1,150 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.back.entities.EntryEntity;
+import com.example.back.entities.UserEntity;
+import com.example.back.repositories.EntryRepository;
+import com.example.back.repositories.UserRepository;
+import com.example.back.services.EntryImportService.Format;
+import com.example.back.services.EntryImportService.ImportResult;
+
+@SpringBootTest
+class EntryExportServiceTests {
+
+    private static final int ROWS = 150_000;
+    private static final int SAMPLE_EVERY = 25_000;
+    private static final long MAX_GROWTH_BYTES = 16L * 1024 * 1024;
+
+    @Autowired
+    private EntryRepository entryRepository;
+
+    @Autowired
+    private EntryExportService entryExportService;
+
+    @Autowired
+    private EntryImportService entryImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String insertEntries(int count) {
+        String userId = UUID.randomUUID().toString();
+        long start = 1_600_000_000_000L;
+
+        List<EntryEntity> chunk = new ArrayList<>(1000);
+        for (int i = 0; i < count; i++) {
+            EntryEntity entryEntity = new EntryEntity();
+            entryEntity.setUserId(userId);
+            entryEntity.setStart(new Date(start + i * 86_400_000L));
+            entryEntity.setEnd(new Date(start + i * 86_400_000L + 28_800_000L));
+            entryEntity.setRate(1 + i % 10);
+            entryEntity.setNotes("night " + i + ", slept \"fine\"");
+            chunk.add(entryEntity);
+
+            if (chunk.size() == 1000) {
+                entryRepository.insertBatch(chunk);
+                chunk = new ArrayList<>(1000);
+            }
+        }
+        entryRepository.insertBatch(chunk);
+        return userId;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    void exportKeepsHeapFlat() throws Exception {
+        String userId = insertEntries(ROWS);
+
+        // the baseline is taken before the export starts, so rows collected up front would show up in every sample
+        long baseline = usedHeap();
+        long[] peak = new long[1];
+        long[] lines = new long[1];
+        OutputStream counting = new OutputStream() {
+            @Override
+            public void write(int b) {
+                if (b == '\n') {
+                    lines[0]++;
+                    if (lines[0] % SAMPLE_EVERY == 0) {
+                        peak[0] = Math.max(peak[0], usedHeap());
+                    }
+                }
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                for (int i = offset; i < offset + length; i++) {
+                    write(bytes[i]);
+                }
+            }
+        };
+
+        long exported = entryExportService.exportEntries(userId, Format.NDJSON, counting);
+
+        assertEquals(ROWS, exported);
+        assertEquals(ROWS, lines[0]);
+        long growth = peak[0] - baseline;
+        assertTrue(growth < MAX_GROWTH_BYTES, "heap grew by " + growth + " bytes while streaming");
+    }
+
+    @Test
+    void csvExportQuotesNotesAndKeepsImportLayout() throws Exception {
+        String userId = insertEntries(2);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entryExportService.exportEntries(userId, Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("start,end,rate,notes", lines[0]);
+        assertEquals("2020-09-13T12:26:40Z,2020-09-13T20:26:40Z,1,\"night 0, slept \"\"fine\"\"\"", lines[1]);
+    }
+
+    @Test
+    void csvExportImportsBackWithMultiLineNotes() throws Exception {
+        String owner = userRepository.save(
+            UserEntity.builder().username("exporter-" + UUID.randomUUID()).password(UUID.randomUUID().toString()).role("USER").build()).getId();
+        EntryEntity entryEntity = new EntryEntity();
+        entryEntity.setUserId(owner);
+        entryEntity.setStart(new Date(1_600_000_000_000L));
+        entryEntity.setEnd(new Date(1_600_028_800_000L));
+        entryEntity.setRate(4);
+        entryEntity.setNotes("woke up at 3,\nthen \"dozed\"\n");
+        entryRepository.insertBatch(List.of(entryEntity));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entryExportService.exportEntries(owner, Format.CSV, out);
+        String target = userRepository.save(
+            UserEntity.builder().username("importer-" + UUID.randomUUID()).password(UUID.randomUUID().toString()).role("USER").build()).getId();
+        ImportResult result = entryImportService.importEntries(target, new ByteArrayInputStream(out.toByteArray()), Format.CSV);
+
+        assertEquals(1, result.imported());
+        assertEquals(List.of(), result.errors());
+        EntryEntity imported = entryRepository.getByUserId(target).get(0);
+        assertEquals(entryEntity.getNotes(), imported.getNotes());
+        assertEquals(entryEntity.getStart().getTime(), imported.getStart().getTime());
+        assertEquals(4, imported.getRate());
+    }
+
+}
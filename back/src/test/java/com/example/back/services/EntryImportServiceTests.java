@@ -0,0 +1,208 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.back.entities.UserEntity;
+import com.example.back.repositories.EntryRepository;
+import com.example.back.repositories.UserRepository;
+import com.example.back.services.EntryImportService.Format;
+import com.example.back.services.EntryImportService.ImportResult;
+import com.example.back.services.EntryImportService.RowError;
+
+@SpringBootTest
+class EntryImportServiceTests {
+
+    private static final long DAY = 86_400_000L;
+    private static final long FIRST_NIGHT = 1_700_000_000_000L;
+
+    @Autowired
+    private EntryImportService entryImportService;
+
+    @Autowired
+    private EntryService entryService;
+
+    @Autowired
+    private EntryRepository entryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String newUser() {
+        return userRepository.save(
+            UserEntity.builder().username("importer-" + UUID.randomUUID()).password(UUID.randomUUID().toString()).role("USER").build()).getId();
+    }
+
+    private static String ndjsonNights(int count) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            long start = FIRST_NIGHT + i * DAY;
+            body.append("{\"start\":").append(start).append(",\"end\":").append(start + 8 * 3_600_000L).append(",\"rate\":7}\n");
+        }
+        return body.toString();
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ImportResult importBody(String userId, String body, Format format) {
+        return entryImportService.importEntries(userId, stream(body), format);
+    }
+
+    @Test
+    void malformedNdjsonRowsAreReportedAndSkipped() {
+        String owner = newUser();
+        String body = "{\"start\":\"2024-01-01T22:00:00Z\",\"end\":\"2024-01-02T06:00:00Z\",\"rate\":8,\"notes\":\"ok\"}\n"
+            + "{\"start\":1700000000000,\n"
+            + "{\"start\":1700000000000,\"end\":1700028800000}\n"
+            + "{\"start\":1700000000000,\"end\":1700028800000,\"rate\":11}\n"
+            + "{\"start\":1700028800000,\"end\":1700000000000,\"rate\":5}\n"
+            + "\n"
+            + "{\"start\":\"yesterday\",\"end\":1700028800000,\"rate\":5}\n"
+            + "{\"start\":1700000000000,\"end\":1700028800000,\"rate\":5,\"notes\":\"" + "z".repeat(256) + "\"}\n";
+
+        ImportResult result = importBody(owner, body, Format.NDJSON);
+
+        assertEquals(1, result.imported());
+        assertEquals(6, result.rejected());
+        assertEquals(List.of(
+            new RowError(2, "Malformed JSON"),
+            new RowError(3, "Missing rate"),
+            new RowError(4, "Rate must be between 1 and 10"),
+            new RowError(5, "End must be after start"),
+            new RowError(7, "Invalid date: yesterday"),
+            new RowError(8, "Notes are longer than 255 characters")
+        ), result.errors());
+        assertEquals("ok", entryRepository.getByUserId(owner).get(0).getNotes());
+    }
+
+    @Test
+    void csvHeaderQuotingAndBadRows() {
+        String owner = newUser();
+        String body = "start,end,rate,notes\n"
+            + "1700000000000,1700028800000,6,\"coffee, late \"\"again\"\"\"\n"
+            + "2024-01-02T22:00:00Z,2024-01-03T06:00:00Z,9\n"
+            + "1700000000000,1700028800000\n"
+            + "1700000000000,1700028800000,six\n"
+            + "1700000000000,1700028800000,6,\"unterminated\n"
+            + "1700000000000,1700028800000,6\n";
+
+        ImportResult result = importBody(owner, body, Format.CSV);
+
+        assertEquals(2, result.imported());
+        assertEquals(List.of(
+            new RowError(4, "Expected start,end,rate[,notes]"),
+            new RowError(5, "Invalid rate: six"),
+            // an open quote takes the following lines into the same field until the body ends
+            new RowError(6, "Unterminated quoted field")
+        ), result.errors());
+        assertEquals(1, entryRepository.getByUserId(owner).stream()
+            .filter(entryEntity -> entryEntity.getNotes().equals("coffee, late \"again\"")).count());
+    }
+
+    @Test
+    void csvNotesMaySpanLines() {
+        String owner = newUser();
+        String body = "start,end,rate,notes\n"
+            + "1700000000000,1700028800000,6,\"woke up twice\nthen \"\"slept\"\"\n\"\n"
+            + "1700086400000,1700028800000,6\n";
+
+        ImportResult result = importBody(owner, body, Format.CSV);
+
+        assertEquals(1, result.imported());
+        // the row after the multi-line one is reported under its own line
+        assertEquals(List.of(new RowError(5, "End must be after start")), result.errors());
+        assertEquals("woke up twice\nthen \"slept\"\n", entryRepository.getByUserId(owner).get(0).getNotes());
+    }
+
+    @Test
+    void largeImportIsWrittenInBatches() {
+        String owner = newUser();
+
+        ImportResult result = importBody(owner, ndjsonNights(1_201), Format.NDJSON);
+
+        assertEquals(1_201, result.imported());
+        assertEquals(0, result.rejected());
+        assertNull(result.failure());
+        assertEquals(1_201, entryRepository.getByUserId(owner).size());
+        // batches of 500: one data-version bump per batch
+        assertEquals(3, entryService.getDataVersion(owner));
+    }
+
+    @Test
+    void reportedErrorsAreCapped() {
+        String owner = newUser();
+
+        ImportResult result = importBody(owner, "not json\n".repeat(150), Format.NDJSON);
+
+        assertEquals(0, result.imported());
+        assertEquals(150, result.rejected());
+        assertEquals(100, result.errors().size());
+        assertEquals(new RowError(100, "Malformed JSON"), result.errors().get(99));
+    }
+
+    @Test
+    void brokenUploadKeepsTheBatchesWrittenBeforeIt() {
+        String owner = newUser();
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+
+        ImportResult result = entryImportService.importEntries(
+            owner, new SequenceInputStream(stream(ndjsonNights(700)), broken), Format.NDJSON);
+
+        // each batch commits on its own, so the first full one stays and the partial second one never reaches the database
+        assertEquals("Upload interrupted", result.failure());
+        assertEquals(500, result.imported());
+        assertEquals(500, entryRepository.getByUserId(owner).size());
+        assertEquals(1, entryService.getDataVersion(owner));
+    }
+
+    @Test
+    void databaseFailureInALaterBatchReportsWhatWasStored() {
+        String owner = newUser();
+        // once the reader has gone past the first batch, the database starts refusing the poisoned rows
+        InputStream poison = new InputStream() {
+            @Override
+            public int read() {
+                jdbcTemplate.execute("alter table \"entry\" add constraint no_poison check (notes <> 'poison') nocheck");
+                return -1;
+            }
+        };
+        String poisoned = ndjsonNights(100).replace("\"rate\":7}", "\"rate\":7,\"notes\":\"poison\"}");
+
+        try {
+            ImportResult result = entryImportService.importEntries(owner,
+                new SequenceInputStream(Collections.enumeration(List.of(stream(ndjsonNights(700)), poison, stream(poisoned)))),
+                Format.NDJSON);
+
+            assertEquals("Database error", result.failure());
+            assertEquals(500, result.imported());
+            assertEquals(500, entryRepository.getByUserId(owner).size());
+        } finally {
+            jdbcTemplate.execute("alter table \"entry\" drop constraint if exists no_poison");
+        }
+    }
+
+}
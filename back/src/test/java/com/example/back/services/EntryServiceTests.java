@@ -0,0 +1,212 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.back.entities.EntryEntity;
+import com.example.back.entities.UserEntity;
+import com.example.back.exceptions.EntryNotExistsException;
+import com.example.back.exceptions.InvalidCursorException;
+import com.example.back.exceptions.InvalidDeleteRequestException;
+import com.example.back.repositories.EntryRepository;
+import com.example.back.repositories.UserRepository;
+import com.example.back.services.EntryService.CompactEntryPage;
+import com.example.back.services.EntryService.EntryPage;
+
+@SpringBootTest
+class EntryServiceTests {
+
+    private static final long DAY = 86_400_000L;
+    private static final long FIRST_NIGHT = 1_700_000_000_000L;
+
+    @Autowired
+    private EntryService entryService;
+
+    @Autowired
+    private EntryRepository entryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private List<EntryEntity> insertNights(String userId, int count) {
+        List<EntryEntity> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            EntryEntity entryEntity = new EntryEntity();
+            entryEntity.setUserId(userId);
+            entryEntity.setStart(new Date(FIRST_NIGHT + i * DAY));
+            entryEntity.setEnd(new Date(FIRST_NIGHT + i * DAY + 8 * 3_600_000L));
+            entryEntity.setRate(7);
+            entryEntity.setNotes("");
+            entries.add(entryEntity);
+        }
+        entryService.insertEntries(userId, entries);
+        return entries;
+    }
+
+    @Test
+    void bulkDeleteByIdsSkipsOtherUsersRows() throws Exception {
+        String owner = UUID.randomUUID().toString();
+        String stranger = UUID.randomUUID().toString();
+        List<EntryEntity> own = insertNights(owner, 3);
+        List<EntryEntity> foreign = insertNights(stranger, 2);
+
+        int deleted = entryService.deleteEntries(owner, List.of(own.get(0).getId(), own.get(1).getId(), foreign.get(0).getId()));
+
+        assertEquals(2, deleted);
+        assertEquals(1, entryRepository.getByUserId(owner).size());
+        assertEquals(2, entryRepository.getByUserId(stranger).size());
+    }
+
+    @Test
+    void bulkDeleteByRangeIsHalfOpen() throws Exception {
+        String owner = UUID.randomUUID().toString();
+        insertNights(owner, 10);
+
+        int deleted = entryService.deleteEntries(owner, new Date(FIRST_NIGHT + 2 * DAY), new Date(FIRST_NIGHT + 5 * DAY));
+
+        assertEquals(3, deleted);
+        assertEquals(7, entryRepository.getByUserId(owner).size());
+    }
+
+    @Test
+    void singleDeleteOfForeignEntryLooksMissing() {
+        String owner = UUID.randomUUID().toString();
+        List<EntryEntity> foreign = insertNights(UUID.randomUUID().toString(), 1);
+
+        assertThrows(EntryNotExistsException.class, () -> entryService.deleteEntry(owner, foreign.get(0).getId()));
+        assertEquals(1, entryRepository.getByUserId(foreign.get(0).getUserId()).size());
+    }
+
+    @Test
+    void foreignEntryLooksMissingToLookups() throws Exception {
+        String owner = UUID.randomUUID().toString();
+        EntryEntity own = insertNights(owner, 1).get(0);
+
+        assertEquals(own.getId(), entryService.getEntry(owner, own.getId()).getId());
+        assertThrows(EntryNotExistsException.class, () -> entryService.getEntry(UUID.randomUUID().toString(), own.getId()));
+        assertThrows(EntryNotExistsException.class, () -> entryService.getEntry(owner, null));
+    }
+
+    @Test
+    void pagesFollowTheCursorWithoutGapsOrRepeats() throws Exception {
+        String owner = UUID.randomUUID().toString();
+        List<EntryEntity> nights = insertNights(owner, 5);
+        // a second night with the same start is ordered by id, so the cursor must carry the id as well
+        EntryEntity twin = new EntryEntity();
+        twin.setUserId(owner);
+        twin.setStart(nights.get(2).getStart());
+        twin.setEnd(nights.get(2).getEnd());
+        twin.setRate(4);
+        twin.setNotes("");
+        entryService.insertEntries(owner, List.of(twin));
+
+        List<EntryEntity> all = new ArrayList<>(nights);
+        all.add(twin);
+        all.sort(Comparator.comparing(EntryEntity::getStart).thenComparing(EntryEntity::getId));
+        List<String> expected = all.stream().map(EntryEntity::getId).toList();
+
+        List<String> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            EntryPage page = entryService.getEntriesPage(owner, null, null, cursor, 3);
+            page.entries().forEach(entryEntity -> seen.add(entryEntity.getId()));
+            pageSizes.add(page.entries().size());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        // six rows in pages of three: the second page is full and still the last one
+        assertEquals(List.of(3, 3), pageSizes);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        String owner = UUID.randomUUID().toString();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+        for (String cursor : List.of("not base64!", encoder.encodeToString("no-separator".getBytes()), encoder.encodeToString("soon:id".getBytes()))) {
+            assertThrows(InvalidCursorException.class, () -> entryService.getEntriesPage(owner, null, null, cursor, 10), cursor);
+            assertThrows(InvalidCursorException.class, () -> entryService.getCompactEntriesPage(owner, null, null, cursor, 10), cursor);
+        }
+    }
+
+    @Test
+    void limitIsCappedAtTheMaximumPageSize() throws Exception {
+        String owner = UUID.randomUUID().toString();
+        insertNights(owner, 1_001);
+
+        EntryPage capped = entryService.getEntriesPage(owner, null, null, null, 5_000);
+        assertEquals(1_000, capped.entries().size());
+        assertNotNull(capped.nextCursor());
+        assertEquals(1_000, entryService.getCompactEntriesPage(owner, null, null, null, 5_000).durations().length);
+
+        assertEquals(200, entryService.getEntriesPage(owner, null, null, null, null).entries().size());
+        assertEquals(200, entryService.getEntriesPage(owner, null, null, null, 0).entries().size());
+    }
+
+    @Test
+    void compactPageMatchesFullPage() throws Exception {
+        String owner = UUID.randomUUID().toString();
+        insertNights(owner, 5);
+
+        EntryPage full = entryService.getEntriesPage(owner, null, null, null, 3);
+        CompactEntryPage compact = entryService.getCompactEntriesPage(owner, null, null, null, 3);
+
+        assertEquals(full.nextCursor(), compact.nextCursor());
+        assertEquals(3, compact.rates().length);
+        long minute = compact.baseMinute();
+        for (int i = 0; i < 3; i++) {
+            EntryEntity entryEntity = full.entries().get(i);
+            minute += compact.startDeltas()[i];
+            assertEquals(entryEntity.getStart().getTime() / 60_000, minute);
+            assertEquals(entryEntity.getEnd().getTime() / 60_000, minute + compact.durations()[i]);
+            assertEquals(entryEntity.getRate(), compact.rates()[i]);
+        }
+    }
+
+    @Test
+    void everyWriteBumpsTheDataVersion() throws Exception {
+        String owner = userRepository.save(
+            UserEntity.builder().username("versioned-" + UUID.randomUUID()).password(UUID.randomUUID().toString()).role("USER").build()).getId();
+        assertEquals(0, entryService.getDataVersion(owner));
+
+        List<EntryEntity> entries = insertNights(owner, 3);
+        assertEquals(1, entryService.getDataVersion(owner));
+
+        entryService.deleteEntry(owner, entries.get(0).getId());
+        entryService.deleteEntries(owner, List.of(entries.get(1).getId()));
+        assertEquals(3, entryService.getDataVersion(owner));
+
+        // nothing matched, nothing changed
+        entryService.deleteEntries(owner, List.of(entries.get(1).getId()));
+        assertEquals(3, entryService.getDataVersion(owner));
+
+        UserEntity stale = userRepository.findById(owner).orElseThrow();
+        entryService.saveEntry(entries.get(2));
+        stale.setPassword(UUID.randomUUID().toString());
+        userRepository.save(stale);
+        assertEquals(4, entryService.getDataVersion(owner));
+    }
+
+    @Test
+    void invalidBulkRequestsAreRejected() {
+        String owner = UUID.randomUUID().toString();
+
+        assertThrows(InvalidDeleteRequestException.class, () -> entryService.deleteEntries(owner, List.of()));
+        assertThrows(InvalidDeleteRequestException.class, () -> entryService.deleteEntries(owner, new Date(FIRST_NIGHT), new Date(FIRST_NIGHT)));
+    }
+
+}
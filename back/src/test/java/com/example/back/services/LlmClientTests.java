@@ -0,0 +1,175 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+import com.example.back.configurations.LlmProperties;
+import com.example.back.exceptions.LlmRequestException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(OutputCaptureExtension.class)
+class LlmClientTests {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile String lastRequestBody;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            requests.incrementAndGet();
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            lastRequestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+            byte[] body = "{\"choices\":[{\"message\":{\"content\":\"<think>hmm</think>ok\"}}],\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":3}}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private LlmClient client(int maxConnections, int breakerFailureThreshold) {
+        return new LlmClient(new LlmProperties(
+            "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions",
+            "test",
+            "test-model",
+            Duration.ofSeconds(1),
+            Duration.ofSeconds(5),
+            maxConnections,
+            maxConnections,
+            Duration.ofSeconds(5),
+            breakerFailureThreshold,
+            Duration.ofMinutes(1)
+        ), meterRegistry);
+    }
+
+    @Test
+    void sequentialCallsReuseOneConnection() throws Exception {
+        LlmClient llmClient = client(4, 5);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals("ok", llmClient.complete("test", "user", "hello"));
+        }
+
+        assertEquals(50, requests.get());
+        assertEquals(1, clientPorts.size());
+        llmClient.destroy();
+    }
+
+    @Test
+    void concurrentCallsStayWithinPool() throws Exception {
+        LlmClient llmClient = client(4, 5);
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            results.add(callers.submit(() -> llmClient.complete("test", "user", "hello")));
+        }
+        for (Future<String> result : results) {
+            assertEquals("ok", result.get());
+        }
+        callers.shutdown();
+
+        assertEquals(400, requests.get());
+        assertTrue(clientPorts.size() <= 4, "opened " + clientPorts.size() + " connections");
+        assertEquals(0, llmClient.getInFlightCalls());
+        llmClient.destroy();
+    }
+
+    @Test
+    void breakerFailsFastOnceProviderIsDegraded() throws Exception {
+        LlmClient llmClient = client(4, 3);
+        status = 500;
+
+        for (int i = 0; i < 3; i++) {
+            LlmRequestException e = assertThrows(LlmRequestException.class, () -> llmClient.complete("test", "user", "hello"));
+            assertEquals("Analytics provider error", e.getMessage());
+        }
+
+        LlmRequestException e = assertThrows(LlmRequestException.class, () -> llmClient.complete("test", "user", "hello"));
+        assertEquals("Analytics provider unavailable", e.getMessage());
+        assertEquals(3, requests.get());
+        assertEquals(CircuitBreaker.State.OPEN, llmClient.getCircuitState());
+        llmClient.destroy();
+    }
+
+    @Test
+    void callsAreTimedByOutcomeAndTokensLoggedPerUser(CapturedOutput output) throws Exception {
+        LlmClient llmClient = client(4, 5);
+
+        llmClient.complete("all_entries", "alice", "hello");
+        llmClient.complete("all_entries", "alice", "hello");
+        status = 500;
+        assertThrows(LlmRequestException.class, () -> llmClient.complete("all_entries", "alice", "hello"));
+
+        assertEquals(2, meterRegistry.get("llm.requests").tag("operation", "all_entries").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("llm.requests").tag("outcome", "provider_error").timer().count());
+        assertEquals(24, meterRegistry.get("llm.tokens").tag("kind", "prompt").counter().count());
+        assertEquals(6, meterRegistry.get("llm.tokens").tag("kind", "completion").counter().count());
+        assertEquals(List.of("kind"), meterRegistry.get("llm.tokens").counters().stream()
+            .flatMap(counter -> counter.getId().getTags().stream()).map(Tag::getKey).distinct().toList());
+        assertEquals(2, output.getOut().split("LLM usage user=alice prompt_tokens=12 completion_tokens=3", -1).length - 1);
+        assertEquals(0, meterRegistry.get("llm.requests.in.flight").gauge().value());
+        llmClient.destroy();
+    }
+
+    @Test
+    void requestIsWrittenAsJsonWithoutABufferedBody() throws Exception {
+        LlmClient llmClient = client(4, 5);
+        String prompt = "Ночь|480|8|\"кофе\" после 18:00\n".repeat(1000);
+
+        assertEquals("ok", llmClient.complete("test", "user", prompt));
+
+        JsonNode request = new ObjectMapper().readTree(lastRequestBody);
+        assertEquals("test-model", request.path("model").asText());
+        assertEquals(prompt, request.path("messages").path(0).path("content").asText());
+        assertFalse(request.path("stream").asBoolean());
+        assertTrue(request.path("stream_options").isMissingNode());
+        llmClient.destroy();
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.back.exceptions.LlmRequestException;
+import com.example.back.services.LlmResponseParser.Completion;
+
+class LlmResponseParserTests {
+
+    private final LlmResponseParser responseParser = new LlmResponseParser();
+
+    private Completion parse(String body) throws Exception {
+        return responseParser.parseCompletion(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void readsFirstChoiceAndUsageSkippingEverythingElse() throws Exception {
+        Completion completion = parse("{\"id\":\"x\",\"meta\":{\"nested\":[1,{\"content\":\"no\"}]},"
+            + "\"choices\":[{\"index\":0,\"logprobs\":null,\"message\":{\"role\":\"assistant\",\"content\":\"<think>a\\nb</think>\\n\\n  Спите больше.\"}},"
+            + "{\"message\":{\"content\":\"second\"}}],"
+            + "\"usage\":{\"prompt_tokens\":120,\"details\":{\"cached\":4},\"completion_tokens\":30}}");
+
+        assertEquals("Спите больше.", completion.content());
+        assertEquals(120, completion.usage().promptTokens());
+        assertEquals(30, completion.usage().completionTokens());
+    }
+
+    @Test
+    void dropsLongReasoningAndKeepsAnswerWithoutTags() throws Exception {
+        String thinking = "reasoning ".repeat(50_000);
+        assertEquals("ok", parse("{\"choices\":[{\"message\":{\"content\":\"<think>" + thinking + "</think>ok\"}}]}").content());
+        assertEquals("plain", parse("{\"choices\":[{\"message\":{\"content\":\"plain\"}}]}").content());
+    }
+
+    @Test
+    void streamChunksKeepTheirTextAndCarryUsage() throws Exception {
+        assertEquals("<thi", responseParser.parseChunk("{\"choices\":[{\"delta\":{\"content\":\"<thi\"}}]}").content());
+        assertNull(responseParser.parseChunk("{\"choices\":[{\"delta\":{}}]}").usage());
+        assertEquals(7, responseParser.parseChunk("{\"choices\":[],\"usage\":{\"prompt_tokens\":3,\"completion_tokens\":7}}").usage().completionTokens());
+    }
+
+    @Test
+    void unreadableAnswerIsAParseError() {
+        LlmRequestException e = assertThrows(LlmRequestException.class, () -> parse("{\"choices\":[{\"message\":"));
+        assertEquals("parse_error", e.getOutcome());
+        assertEquals("parse_error", assertThrows(LlmRequestException.class, () -> parse("not json")).getOutcome());
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.back.configurations.AnalyticsPromptProperties;
+import com.example.back.configurations.AnalyticsProperties;
+import com.example.back.projections.EntryRow;
+
+class PromptBuilderTests {
+
+    private static final String HEADER = "start_min|duration_min|rate|notes\n";
+
+    private PromptBuilder promptBuilder(String zone, int tokenBudget, Duration window, int maxNoteLength) {
+        return new PromptBuilder(new AnalyticsProperties(zone), new AnalyticsPromptProperties(tokenBudget, 4, window, maxNoteLength));
+    }
+
+    private static EntryRow row(String start, long minutes, int rate, String notes) {
+        Instant startInstant = Instant.parse(start);
+        return new EntryRow(start, Date.from(startInstant), Date.from(startInstant.plus(Duration.ofMinutes(minutes))), rate, notes);
+    }
+
+    private static List<EntryRow> nights(int count) {
+        List<EntryRow> rows = new ArrayList<>();
+        Instant first = Instant.parse("2024-01-01T22:00:00Z");
+        for (int day = 0; day < count; day++) {
+            rows.add(row(first.plus(Duration.ofDays(day)).toString(), 480, 7, ""));
+        }
+        return rows;
+    }
+
+    private static String table(String prompt) {
+        return prompt.substring(prompt.indexOf(HEADER) + HEADER.length());
+    }
+
+    @Test
+    void rowsAreOffsetFromTheOldestNightAnchoredInTheConfiguredZone() {
+        List<EntryRow> rows = List.of(
+            row("2024-01-03T13:00:00Z", 500, 9, ""),
+            row("2024-01-01T13:00:00Z", 480, 7, "a"),
+            row("2024-01-02T14:30:00Z", 450, 5, "b")
+        );
+
+        String prompt = promptBuilder("Asia/Tokyo", 3000, Duration.ofDays(90), 160).buildEntriesPrompt("instructions", rows);
+
+        assertEquals("instructions\n\n"
+            + "zone=Asia/Tokyo anchor=2024-01-01 22:00\n"
+            + HEADER
+            + "0|480|7|a\n"
+            + "1530|450|5|b\n"
+            + "2880|500|9|\n", prompt);
+    }
+
+    @Test
+    void budgetKeepsTheNewestNightsAndSummarizesTheRest() {
+        // 200 tokens of 4 chars minus the 400 reserved for header and summary leave 400 chars of rows
+        String prompt = promptBuilder("UTC", 200, Duration.ofDays(365), 160).buildEntriesPrompt("", nights(100));
+
+        String[] rows = table(prompt).split("\n");
+        assertEquals(30, rows.length);
+        assertTrue(table(prompt).length() <= 400, table(prompt));
+        assertTrue(prompt.contains("anchor=2024-03-11 22:00\n"), prompt);
+        assertEquals("41760|480|7|", rows[rows.length - 1]);
+        assertTrue(prompt.contains("Earlier history, 70 nights from 2024-01-01 to 2024-03-10: "
+            + "average duration 8h 0m, average rate 7.0, typical bedtime 22:00\n"), prompt);
+    }
+
+    @Test
+    void fitsBudgetOnlyWhenEveryRowCanBeListed() {
+        PromptBuilder builder = promptBuilder("UTC", 200, Duration.ofDays(365), 160);
+        List<EntryRow> rows = nights(30);
+
+        assertTrue(builder.fitsBudget("", rows));
+        assertEquals(30, table(builder.buildEntriesPrompt("", rows)).split("\n").length);
+        assertFalse(builder.fitsBudget("", nights(31)));
+        assertFalse(builder.fitsBudget("x".repeat(800), List.of()));
+    }
+
+    @Test
+    void nightsOutsideTheWindowGoToTheSummary() {
+        String prompt = promptBuilder("UTC", 3000, Duration.ofDays(7), 160).buildEntriesPrompt("", nights(20));
+
+        assertEquals(8, table(prompt).split("\n").length);
+        assertTrue(prompt.contains("Earlier history, 12 nights from 2024-01-01 to 2024-01-12: "), prompt);
+    }
+
+    @Test
+    void summaryBedtimeAveragesAcrossMidnight() {
+        List<EntryRow> rows = List.of(
+            row("2024-01-01T23:30:00Z", 420, 4, ""),
+            row("2024-01-03T00:30:00Z", 480, 6, ""),
+            row("2024-01-10T22:00:00Z", 480, 7, "")
+        );
+
+        String prompt = promptBuilder("UTC", 3000, Duration.ofDays(1), 160).buildEntriesPrompt("", rows);
+
+        assertTrue(prompt.contains("Earlier history, 2 nights from 2024-01-01 to 2024-01-03: "
+            + "average duration 7h 30m, average rate 5.0, typical bedtime 00:00\n"), prompt);
+    }
+
+    @Test
+    void notesAreFlattenedAndShortened() {
+        String prompt = promptBuilder("UTC", 3000, Duration.ofDays(90), 5)
+            .buildEntriesPrompt("", List.of(row("2024-01-01T22:00:00Z", 480, 7, "ab|c\nde fgh")));
+
+        assertEquals("0|480|7|ab c …\n", table(prompt));
+    }
+
+    @Test
+    void noNightsIsSaidPlainly() {
+        assertEquals("instructions\n\nNo nights recorded.\n",
+            promptBuilder("UTC", 3000, Duration.ofDays(90), 160).buildEntriesPrompt("instructions", List.of()));
+    }
+
+}
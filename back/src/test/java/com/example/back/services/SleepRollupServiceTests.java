@@ -0,0 +1,125 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.back.entities.EntryEntity;
+import com.example.back.entities.SleepRollupEntity;
+import com.example.back.entities.SleepRollupEntity.Period;
+import com.example.back.repositories.SleepRollupRepository;
+import com.example.back.services.SleepRollupService.TrendPoint;
+
+@SpringBootTest
+class SleepRollupServiceTests {
+
+    @Autowired
+    private EntryService entryService;
+
+    @Autowired
+    private SleepRollupService sleepRollupService;
+
+    @Autowired
+    private SleepRollupRepository sleepRollupRepository;
+
+    private static EntryEntity night(String userId, String start, int minutes, int rate) {
+        EntryEntity entryEntity = new EntryEntity();
+        entryEntity.setUserId(userId);
+        entryEntity.setStart(Date.from(Instant.parse(start)));
+        entryEntity.setEnd(Date.from(Instant.parse(start).plusSeconds(minutes * 60L)));
+        entryEntity.setRate(rate);
+        entryEntity.setNotes("");
+        return entryEntity;
+    }
+
+    private List<SleepRollupEntity> rollups(String userId, Period period) {
+        return sleepRollupRepository.findByUserIdAndPeriodAndPeriodStartBetweenOrderByPeriodStart(
+            userId, period, LocalDate.of(2000, 1, 1), LocalDate.of(2100, 1, 1));
+    }
+
+    @Test
+    void nightsAfterMidnightBelongToThePreviousDay() {
+        String userId = UUID.randomUUID().toString();
+        // Monday 2024-01-01 23:00 and Tuesday 01:00 are both counted as nights of their evening
+        entryService.saveEntry(night(userId, "2024-01-01T23:00:00Z", 480, 8));
+        entryService.saveEntry(night(userId, "2024-01-03T01:00:00Z", 360, 4));
+
+        List<SleepRollupEntity> days = rollups(userId, Period.DAY);
+        assertEquals(2, days.size());
+        assertEquals(LocalDate.of(2024, 1, 1), days.get(0).getPeriodStart());
+        assertEquals(LocalDate.of(2024, 1, 2), days.get(1).getPeriodStart());
+
+        List<SleepRollupEntity> weeks = rollups(userId, Period.WEEK);
+        assertEquals(1, weeks.size());
+        assertEquals(LocalDate.of(2024, 1, 1), weeks.get(0).getPeriodStart());
+        assertEquals(2, weeks.get(0).getNights());
+        assertEquals(840, weeks.get(0).getTotalMinutes());
+        assertEquals(4, weeks.get(0).getRateMin());
+        assertEquals(8, weeks.get(0).getRateMax());
+    }
+
+    @Test
+    void deletesRecomputeMinimumAndMaximum() throws Exception {
+        String userId = UUID.randomUUID().toString();
+        EntryEntity best = entryService.saveEntry(night(userId, "2024-01-01T22:00:00Z", 480, 9));
+        entryService.saveEntry(night(userId, "2024-01-02T22:00:00Z", 420, 6));
+        entryService.saveEntry(night(userId, "2024-01-03T22:00:00Z", 400, 5));
+
+        entryService.deleteEntry(userId, best.getId());
+
+        SleepRollupEntity week = rollups(userId, Period.WEEK).get(0);
+        assertEquals(2, week.getNights());
+        assertEquals(6, week.getRateMax());
+        assertEquals(5, week.getRateMin());
+
+        entryService.deleteEntries(userId, Date.from(Instant.parse("2024-01-02T00:00:00Z")), Date.from(Instant.parse("2024-01-05T00:00:00Z")));
+        assertEquals(0, rollups(userId, Period.DAY).size());
+        assertEquals(0, rollups(userId, Period.WEEK).size());
+    }
+
+    @Test
+    void rebuildMatchesIncrementalMaintenance() {
+        String userId = UUID.randomUUID().toString();
+        List<EntryEntity> entries = new ArrayList<>();
+        Instant start = Instant.parse("2023-06-01T21:30:00Z");
+        for (int i = 0; i < 120; i++) {
+            entries.add(night(userId, start.plusSeconds(i * 86_400L + (i % 5) * 1_800L).toString(), 360 + (i % 7) * 20, 1 + i % 10));
+        }
+        entryService.insertEntries(userId, entries.subList(0, 60));
+        entryService.insertEntries(userId, entries.subList(60, 120));
+
+        List<SleepRollupEntity> incrementalDays = rollups(userId, Period.DAY);
+        List<SleepRollupEntity> incrementalWeeks = rollups(userId, Period.WEEK);
+
+        sleepRollupService.rebuild(userId);
+
+        assertEquals(incrementalDays, rollups(userId, Period.DAY));
+        assertEquals(incrementalWeeks, rollups(userId, Period.WEEK));
+        assertEquals(120, incrementalDays.size());
+    }
+
+    @Test
+    void trendsAverageTheRollups() {
+        String userId = UUID.randomUUID().toString();
+        entryService.saveEntry(night(userId, "2024-01-01T23:00:00Z", 480, 8));
+        entryService.saveEntry(night(userId, "2024-01-03T01:00:00Z", 360, 4));
+
+        List<TrendPoint> trend = sleepRollupService.getTrends(userId, Period.WEEK, LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 31));
+
+        assertEquals(1, trend.size());
+        assertEquals(420, trend.get(0).averageDurationMinutes());
+        assertEquals(6, trend.get(0).averageRate());
+        assertEquals(0, trend.get(0).meanBedtimeMinute());
+        assertEquals(60, trend.get(0).bedtimeDeviationMinutes());
+    }
+
+}
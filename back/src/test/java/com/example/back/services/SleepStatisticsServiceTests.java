@@ -0,0 +1,117 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.back.entities.EntryEntity;
+import com.example.back.services.SleepStatisticsService.SleepStatistics;
+
+class SleepStatisticsServiceTests {
+
+    private final SleepStatisticsService sleepStatisticsService = new SleepStatisticsService();
+
+    private EntryEntity entry(String id, String start, long minutes, int rate) {
+        Instant startInstant = Instant.parse(start);
+        return EntryEntity.builder()
+            .id(id)
+            .userId("user")
+            .start(Date.from(startInstant))
+            .end(Date.from(startInstant.plus(Duration.ofMinutes(minutes))))
+            .rate(rate)
+            .notes("")
+            .build();
+    }
+
+    @Test
+    void computesAveragesRegularityAndWeekendSplit() {
+        List<EntryEntity> entries = List.of(
+            entry("mon", "2024-01-01T23:00:00Z", 480, 6),
+            entry("tue", "2024-01-02T23:00:00Z", 480, 7),
+            entry("fri", "2024-01-05T23:00:00Z", 600, 8),
+            entry("sat", "2024-01-06T23:00:00Z", 600, 9)
+        );
+
+        SleepStatistics stats = sleepStatisticsService.compute(entries, ZoneId.of("UTC"));
+
+        assertEquals(4, stats.count());
+        assertEquals(540, stats.averageDurationMinutes(), 1e-9);
+        assertEquals(540, stats.medianDurationMinutes(), 1e-9);
+        assertEquals(7.5, stats.averageRate(), 1e-9);
+        assertTrue(stats.rateTrendPerWeek() > 0);
+
+        assertEquals(1.0, stats.bedtimeRegularity(), 1e-9);
+        assertEquals(23 * 60, stats.meanBedtimeMinute());
+        assertEquals(Math.cos(Math.toRadians(15)), stats.wakeTimeRegularity(), 1e-9);
+        assertEquals(8 * 60, stats.meanWakeTimeMinute());
+
+        assertEquals(2, stats.weekdays().count());
+        assertEquals(480, stats.weekdays().averageDurationMinutes(), 1e-9);
+        assertEquals(6.5, stats.weekdays().averageRate(), 1e-9);
+        assertEquals(2, stats.weekends().count());
+        assertEquals(600, stats.weekends().averageDurationMinutes(), 1e-9);
+        assertEquals(8.5, stats.weekends().averageRate(), 1e-9);
+
+        assertTrue(stats.outlierEntryIds().isEmpty());
+    }
+
+    @Test
+    void afterMidnightBedtimesBelongToThePreviousEvening() {
+        // 00:30 in Berlin: Friday and Saturday nights are the weekend, Thursday and Sunday nights are not
+        List<EntryEntity> entries = List.of(
+            entry("thu", "2024-01-04T23:30:00Z", 420, 5),
+            entry("fri", "2024-01-05T23:30:00Z", 600, 9),
+            entry("sat", "2024-01-06T23:30:00Z", 600, 9),
+            entry("sun", "2024-01-07T23:30:00Z", 420, 5)
+        );
+
+        SleepStatistics stats = sleepStatisticsService.compute(entries, ZoneId.of("Europe/Berlin"));
+
+        assertEquals(2, stats.weekends().count());
+        assertEquals(600, stats.weekends().averageDurationMinutes(), 1e-9);
+        assertEquals(9, stats.weekends().averageRate(), 1e-9);
+        assertEquals(2, stats.weekdays().count());
+        assertEquals(420, stats.weekdays().averageDurationMinutes(), 1e-9);
+    }
+
+    @Test
+    void bedtimeAroundMidnightIsRegular() {
+        List<EntryEntity> entries = List.of(
+            entry("a", "2024-01-01T23:50:00Z", 480, 7),
+            entry("b", "2024-01-03T00:10:00Z", 480, 7)
+        );
+
+        SleepStatistics stats = sleepStatisticsService.compute(entries, ZoneId.of("UTC"));
+
+        assertEquals(0, stats.meanBedtimeMinute());
+        assertTrue(stats.bedtimeRegularity() > 0.99);
+    }
+
+    @Test
+    void flagsOutlierNights() {
+        List<EntryEntity> entries = new ArrayList<>();
+        for (int day = 1; day <= 10; day++) {
+            entries.add(entry("night" + day, String.format("2024-02-%02dT23:00:00Z", day), 480, 7));
+        }
+        entries.add(entry("short", "2024-02-11T23:00:00Z", 120, 3));
+
+        SleepStatistics stats = sleepStatisticsService.compute(entries, ZoneId.of("UTC"));
+
+        assertEquals(List.of("short"), stats.outlierEntryIds());
+        assertEquals(480, stats.medianDurationMinutes(), 1e-9);
+    }
+
+    @Test
+    void emptyHistoryHasEmptyStatistics() {
+        assertEquals(0, sleepStatisticsService.compute(List.of(), ZoneId.of("UTC")).count());
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class ThinkTagFilterTests {
+
+    private String feedAll(String... chunks) {
+        ThinkTagFilter filter = new ThinkTagFilter();
+        StringBuilder visible = new StringBuilder();
+        for (String chunk : chunks) {
+            visible.append(filter.feed(chunk));
+        }
+        visible.append(filter.finish());
+        return visible.toString();
+    }
+
+    @Test
+    void dropsReasoningInOneChunk() {
+        assertEquals("Answer", feedAll("<think>reasoning</think>\n\nAnswer"));
+    }
+
+    @Test
+    void dropsReasoningWithTagsSplitAcrossChunks() {
+        assertEquals("Sleep well.", feedAll("<th", "ink>some ", "thoughts</th", "ink>", "\n", "Sleep", " well."));
+    }
+
+    @Test
+    void emitsTextBeforeTheClosingTagArrives() {
+        ThinkTagFilter filter = new ThinkTagFilter();
+        assertEquals("", filter.feed("<think>a"));
+        assertEquals("", filter.feed("b</think>  "));
+        assertEquals("Hi ", filter.feed("Hi <"));
+        assertEquals("<b>", filter.feed("b>"));
+        assertEquals("", filter.finish());
+    }
+
+    @Test
+    void keepsTextWithoutReasoning() {
+        assertEquals("plain < text", feedAll("plain <", " text"));
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.example.back.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketLimiterTests {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    private TokenBucketLimiter limiter(int capacity, Duration refill) {
+        return new TokenBucketLimiter(capacity, refill, 8, Duration.ofMinutes(30), clock::get);
+    }
+
+    @Test
+    void burstThenRefillOneTokenAtATime() {
+        TokenBucketLimiter limiter = limiter(3, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("alice"));
+        }
+        assertEquals(Duration.ofMinutes(1).toNanos(), limiter.tryAcquire("alice"));
+        assertEquals(0, limiter.tryAcquire("bob"));
+
+        clock.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertEquals(Duration.ofSeconds(1).toNanos(), limiter.tryAcquire("alice"));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(0, limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice") > 0);
+    }
+
+    @Test
+    void holdsUnderContention() throws Exception {
+        int capacity = 5;
+        int users = 200;
+        int threads = 32;
+        TokenBucketLimiter limiter = limiter(capacity, Duration.ofHours(1));
+
+        AtomicLongArray granted = new AtomicLongArray(users);
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(threads);
+
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            results.add(callers.submit(() -> {
+                start.await();
+                for (int i = 0; i < 2_000; i++) {
+                    int user = (i + offset * 7) % users;
+                    if (limiter.tryAcquire("user-" + user) == 0) {
+                        granted.incrementAndGet(user);
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+
+        for (int user = 0; user < users; user++) {
+            assertEquals(capacity, granted.get(user), "user-" + user);
+        }
+        assertEquals(threads * 2_000 - users * capacity, rejected.get());
+    }
+
+    @Test
+    void idleBucketsAreEvicted() {
+        TokenBucketLimiter limiter = limiter(2, Duration.ofMinutes(1));
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("user-" + i);
+        }
+        assertEquals(100, limiter.trackedKeys());
+
+        clock.addAndGet(Duration.ofMinutes(31).toNanos());
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("other-" + i);
+        }
+
+        assertEquals(100, limiter.trackedKeys());
+    }
+
+}
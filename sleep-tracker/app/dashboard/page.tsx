@@ -5,7 +5,7 @@ import { Card, CardContent, CardHeader, CardTitle } from '@/components/ui/card';
 import { Progress } from '@/components/ui/progress';
 import { SleepEntryForm } from '@/components/sleep-entry-form';
 import { EntriesTable } from '@/components/entries-table';
-import { authApi, entryApi } from '@/lib/api';
+import { authApi, getAllEntries } from '@/lib/api';
 import { useRouter } from 'next/navigation';
 import Link from 'next/link';
 import { SleepEntry, SleepStats } from '@/lib/types';
@@ -18,8 +18,7 @@ export default function Dashboard() {
 
   const fetchEntries = async () => {
     try {
-      const { data: entriesData } = await entryApi.getEntries();
-      setEntries(entriesData?.entries || []);
+      setEntries(await getAllEntries());
     } catch (error) {
       console.error('Error fetching entries:', error);
     }
@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { ChartPoint, CompactEntries, SleepEntry } from './types';
 
 const api = axios.create({
   baseURL: '/api',
@@ -15,12 +16,42 @@ export const authApi = {
 };
 
 export const entryApi = {
-  getEntries: () => api.get('/entry/entries'),
+  getEntries: (params?: { from?: string; to?: string; cursor?: string; limit?: number }) =>
+    api.get<{ entries: SleepEntry[]; nextCursor: string | null }>('/entry/entries', { params }),
+  getCompactEntries: (params?: { from?: string; to?: string; cursor?: string; limit?: number }) =>
+    api.get<CompactEntries>('/entry/entries', { params: { ...params, format: 'compact' } }),
   addEntry: (data: { start: Date; end: Date; rate: number; notes: string }) =>
     api.post<{ entryId: string }>('/entry/add', data),
   deleteEntry: (id: string) => api.post('/entry/delete', { entryId: id }),
 };
 
+// the server returns one page at a time, oldest first; follow the cursor until the last page
+export const getAllEntries = async (): Promise<SleepEntry[]> => {
+  const entries: SleepEntry[] = [];
+  let cursor: string | undefined;
+  do {
+    const { data } = await entryApi.getEntries(cursor ? { cursor } : undefined);
+    entries.push(...(data?.entries || []));
+    cursor = data?.nextCursor || undefined;
+  } while (cursor);
+  return entries;
+};
+
+export const decodeCompactEntries = (page: CompactEntries): ChartPoint[] => {
+  const rates = atob(page.rates);
+  const points: ChartPoint[] = [];
+  let minute = page.baseMinute;
+  for (let i = 0; i < page.startDeltas.length; i++) {
+    minute += page.startDeltas[i];
+    points.push({
+      start: new Date(minute * 60000),
+      end: new Date((minute + page.durations[i]) * 60000),
+      rate: rates.charCodeAt(i),
+    });
+  }
+  return points;
+};
+
 export const analyticsApi = {
   getNotes: (entryId: string) => 
     api.post<{ data: string }>('/analytics/notes', { entryId }),
@@ -7,6 +7,21 @@ export interface SleepEntry {
   userId: string;
 }
 
+// columnar /entry/entries?format=compact payload; rates is base64 of one byte per entry
+export interface CompactEntries {
+  baseMinute: number;
+  startDeltas: number[];
+  durations: number[];
+  rates: string;
+  nextCursor: string | null;
+}
+
+export interface ChartPoint {
+  start: Date;
+  end: Date;
+  rate: number;
+}
+
 export interface SleepStats {
   avgDuration: number;
   avgQuality: number;